@@ -0,0 +1,735 @@
+package com.catlinman.spyfall;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micro benchmark harness for the hot paths of the game. Each benchmark is warmed up and then measured over a
+ * number of timed iterations. Results are written as JSON so runs of different commits can be compared.
+ *
+ * Usage: Benchmarks [output.json]
+ * System properties: bench.sizes (catalog sizes, default 30,10000), bench.players (default 3,4,8),
+ * bench.games (sessions held for the density benchmark, default 200000),
+ * bench.tables (full lobby tables played over loopback, default 500), bench.filter (only run benchmarks whose name
+ * contains the value), bench.commit (recorded in the output).
+ */
+public final class Benchmarks {
+    private static final int WARMUP     = 3;   // Amount of warmup iterations.
+    private static final int ITERATIONS = 8;   // Amount of measured iterations.
+    private static final long DURATION  = 250; // Target duration of a single iteration in milliseconds.
+
+    private static volatile long sink; // Receives benchmark results so the work can not be optimized away.
+
+    private static final ArrayList<String> results = new ArrayList<String>(); // JSON objects of finished benchmarks.
+
+    // Allocation counter of the current thread. Null if the JVM does not support it.
+    private static final com.sun.management.ThreadMXBean threads = allocationBean();
+
+    // Runs a benchmark body a given amount of times and returns a value depending on the work done.
+    private interface Body {
+        long run(int ops) throws Exception;
+    }
+
+    private Benchmarks() {}
+
+    public static void main(String[] args) throws Exception {
+        String output = args.length > 0 ? args[0] : "bench-results.json";
+        String filter = System.getProperty("bench.filter", "");
+
+        int[] sizes   = parse(System.getProperty("bench.sizes", "30,10000"));
+        int[] players = parse(System.getProperty("bench.players", "3,4,8"));
+
+        Locale.initialize("en");
+
+        for (int size : sizes) {
+            String params = "\"size\": " + size;
+            byte[] csv    = csv(size);
+
+            // Parsing a location data file into a catalog.
+            if (run(filter, "catalog.read"))
+                measure("catalog.read", params, ops -> {
+                    long n = 0;
+                    for (int i = 0; i < ops; i++) n += LocationCatalog.read("en", new ByteArrayInputStream(csv)).size();
+                    return n;
+                });
+
+            // Opening a compiled pack and resolving a single location as done when starting a round.
+            if (run(filter, "pack.open")) {
+                Path pack = Files.createTempFile("spyfall", "." + LocationPack.EXTENSION);
+                LocationPack.compile(LocationCatalog.read("en", new ByteArrayInputStream(csv)), pack);
+
+                measure("pack.open", params, ops -> {
+                    long n = 0;
+                    for (int i = 0; i < ops; i++) n += LocationPack.open(pack).getName(i % size).length();
+                    return n;
+                });
+
+                Files.deleteIfExists(pack);
+            }
+
+            LocationCatalog catalog = LocationCatalog.read("en", new ByteArrayInputStream(csv));
+
+            for (int p : players) {
+                String both = params + ", \"players\": " + p;
+
+                // Dealing a full round including location selection and player creation.
+                if (run(filter, "game.prepare")) {
+                    Game game = new Game(0, catalog);
+
+                    measure("game.prepare", both, ops -> {
+                        long n = 0;
+                        for (int i = 0; i < ops; i++) {
+                            game.prepare(p, 0);
+                            n += game.getSpyPlayer().getID();
+                            game.reset();
+                        }
+                        return n;
+                    });
+                }
+            }
+        }
+
+        for (int p : players) {
+            String params = "\"players\": " + p;
+
+            // Picking the spy and dealing roles with the reusable dealer.
+            if (run(filter, "dealer.deal")) {
+                Dealer dealer = new Dealer(8);
+
+                measure("dealer.deal", params, ops -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                    long n = 0;
+                    for (int i = 0; i < ops; i++) {
+                        dealer.deal(p, 7, random);
+                        n += dealer.getSpy();
+                    }
+                    return n;
+                });
+            }
+
+            // Casting votes and reading the leader of the round.
+            if (run(filter, "game.vote")) {
+                Game game = new Game(0, LocationCatalog.get("en"));
+                game.prepare(p, 0);
+
+                measure("game.vote", params, ops -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                    long n = 0;
+                    for (int i = 0; i < ops; i++) {
+                        game.vote(random.nextInt(p), random.nextInt(p));
+                        n += game.voteResult() != null ? 1 : 0;
+                    }
+                    return n;
+                });
+            }
+
+            // The same with every vote appended to a journal. Includes the batched writes to the file.
+            if (run(filter, "game.vote.journal")) {
+                Path file = Files.createTempFile("spyfall", ".journal");
+
+                try (Journal journal = Journal.open(file)) {
+                    Game game = new Game(0, LocationCatalog.get("en"));
+                    game.setJournal(journal);
+                    game.prepare(p, 0);
+
+                    measure("game.vote.journal", params, ops -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                        long n = 0;
+                        for (int i = 0; i < ops; i++) {
+                            game.vote(random.nextInt(p), random.nextInt(p));
+                            n += game.voteResult() != null ? 1 : 0;
+                        }
+                        return n;
+                    });
+                }
+
+                Files.delete(file);
+            }
+        }
+
+        // Everything loaded before the first window is shown: The strings and the locations of a single language.
+        // Run with the classes and resources packaged in a jar to compare against the plain directory layout.
+        if (run(filter, "startup.load"))
+            measure("startup.load", "\"layout\": \"" + layout() + "\"", ops -> {
+                long n = 0;
+                for (int i = 0; i < ops; i++) {
+                    Locale.initialize("en");
+                    n += LocationCatalog.load("en").size();
+                }
+                return n;
+            });
+
+        // Loading the user interface strings and looking up a key.
+        if (run(filter, "locale.initialize"))
+            measure("locale.initialize", "", ops -> {
+                for (int i = 0; i < ops; i++) Locale.initialize("en");
+                return ops;
+            });
+
+        if (run(filter, "locale.get"))
+            measure("locale.get", "", ops -> {
+                long n = 0;
+                for (int i = 0; i < ops; i++) n += Locale.get(Message.GAME_INFORMATION_TIMELEFT).length();
+                return n;
+            });
+
+        // Resolving an exact and a misspelled location guess of the spy.
+        if (run(filter, "guess.match")) {
+            GuessMatcher matcher = LocationCatalog.get("en").getMatcher();
+
+            measure("guess.match", "\"guess\": \"exact\"", ops -> {
+                long n = 0;
+                for (int i = 0; i < ops; i++) n += matcher.match("Military Base").id;
+                return n;
+            });
+
+            measure("guess.match", "\"guess\": \"typo\"", ops -> {
+                long n = 0;
+                for (int i = 0; i < ops; i++) n += matcher.match("militray bse").id;
+                return n;
+            });
+        }
+
+        if (run(filter, "utilities.capitalize"))
+            measure("utilities.capitalize", "", ops -> {
+                long n = 0;
+                for (int i = 0; i < ops; i++) n += Utilities.capitalize(" economy class passenger").length();
+                return n;
+            });
+
+        if (run(filter, "utilities.shuffle")) {
+            String[] roles = LocationCatalog.get("en").getRoles(0).clone();
+
+            measure("utilities.shuffle", "", ops -> {
+                for (int i = 0; i < ops; i++) Utilities.shuffle(roles);
+                return roles[0].length();
+            });
+        }
+
+        // Round throughput of independent games sharing a single registry.
+        if (run(filter, "registry.throughput")) {
+            int cores = Runtime.getRuntime().availableProcessors();
+
+            for (int t = 1; t <= cores; t *= 2) throughput(t);
+            if (Integer.highestOneBit(cores) != cores) throughput(cores);
+        }
+
+        // A stopwatch tick of a running round delivered to a listener called directly and to one with an executor
+        // which queues its events like Platform::runLater does.
+        if (run(filter, "game.tick")) {
+            GameListener listener = new GameListener() {
+                @Override
+                public void tick(Game game, long timeLeft) {
+                    sink += timeLeft;
+                }
+            };
+
+            tick("direct", listener, null);
+            tick("executor", listener, new ArrayDeque<Runnable>());
+        }
+
+        // Local rounds and lobby tables recorded into one journal the way the program does. Fails if replaying mixes
+        // up their games.
+        if (run(filter, "journal.replay")) replay(Integer.getInteger("bench.tables", 500));
+
+        // Votes cast on a single round by every core at once. Fails if the tallies or the leader are off afterwards.
+        if (run(filter, "vote.contention"))
+            for (int p : players) contention(p, Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+        // Heap retained per session by a registry full of dealt rounds.
+        if (run(filter, "registry.density"))
+            for (int p : players) density(Integer.getInteger("bench.games", 200000), p);
+
+        // Threads of the process while a growing amount of stopwatches is running. Fails if starting games adds more
+        // threads than the stopwatch pool holds.
+        if (run(filter, "stopwatch.threads")) {
+            int baseline = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            for (int games : new int[] {10, 100, 10000}) stopwatches(games, baseline);
+        }
+
+        // Joining, dealing and voting with thousands of players each on their own loopback connection.
+        if (run(filter, "lobby.loopback")) lobby(Integer.getInteger("bench.tables", 500));
+
+        write(Paths.get(output));
+
+        System.out.println("Benchmark results written to " + output + ".");
+    } /* main */
+
+    // Measures rounds per second with a number of threads each playing their own game.
+    private static void throughput(int count) throws Exception {
+        GameRegistry registry = new GameRegistry();
+        AtomicLong rounds     = new AtomicLong();
+        CountDownLatch done   = new CountDownLatch(count);
+
+        long end = System.nanoTime() + DURATION * ITERATIONS * 1000000L;
+
+        for (int t = 0; t < count; t++) {
+            new Thread(() -> {
+                Game game = registry.create();
+
+                long n = 0;
+                while (System.nanoTime() < end) {
+                    game.prepare(8, 0);
+                    game.start();
+                    game.gameover();
+                    game.reset();
+                    n++;
+                }
+
+                rounds.addAndGet(n);
+                registry.retire(game.getID());
+                done.countDown();
+            }).start();
+        }
+
+        done.await();
+
+        double seconds = DURATION * ITERATIONS / 1000.0;
+        record("registry.throughput", "\"threads\": " + count, "rounds/s", rounds.get() / seconds, 0, -1);
+    }
+
+    // Plays interleaved rounds of a local registry and a lobby registry sharing a journal, replays it and compares
+    // every replayed game with the game it was recorded from. Records the time the replay took.
+    private static void replay(int count) throws Exception {
+        Path file = Files.createTempFile("spyfall", ".journal");
+
+        GameRegistry local  = new GameRegistry();
+        GameRegistry tables = new GameRegistry(GameRegistry.MAXGAMES, Lobby.FIRSTID);
+        ArrayList<Game> played = new ArrayList<Game>();
+
+        try (Journal journal = Journal.open(file)) {
+            local.setJournal(journal);
+            tables.setJournal(journal);
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            for (int i = 0; i < count; i++) {
+                Game a = local.create();
+                Game b = tables.create();
+                played.add(a);
+                played.add(b);
+
+                a.prepare(8, 0);
+                b.prepare(4, 0);
+                a.start();
+                b.start();
+
+                for (int v = 0; v < 8; v++) {
+                    a.vote(v, random.nextInt(8));
+                    b.vote(v % 4, random.nextInt(4));
+                }
+
+                b.gameover();
+                if (random.nextBoolean()) a.pause();
+            }
+        }
+
+        long start = System.nanoTime();
+        Map<Long, Game> replayed = Journal.replay(file).get(0);
+        long time  = System.nanoTime() - start;
+
+        Files.delete(file);
+
+        for (Game g : played) {
+            Game r = replayed.get(g.getID());
+
+            if (r == null || r.getState() != g.getState() || r.getLocation().getID() != g.getLocation().getID()
+                || r.getSpyPlayer().getID() != g.getSpyPlayer().getID())
+                throw new IllegalStateException("Game " + g.getID() + " was replayed differently");
+
+            for (Player p : g.getPlayers())
+                if (r.getPlayers()[p.getID()].getSuspectID() != p.getSuspectID())
+                    throw new IllegalStateException("Game " + g.getID() + " was replayed with different votes");
+        }
+
+        record("journal.replay", "\"games\": " + played.size(), "ms", time / 1e6, 0, -1);
+    } /* replay */
+
+    // Calls the tick of a running round which has a single listener. The stopwatch itself is left to the scheduler.
+    // Listeners with a queue receive their events through it and the queue is drained after every tick.
+    private static void tick(String dispatch, GameListener listener, ArrayDeque<Runnable> queue) throws Exception {
+        Game game = new Game(0, LocationCatalog.get("en"));
+        game.prepare(8, 600);
+        game.start();
+
+        if (queue != null) game.addListener(listener, queue::add);
+        else game.addListener(listener);
+
+        long remaining = TimeUnit.SECONDS.toNanos(300);
+
+        measure("game.tick", "\"listener\": \"" + dispatch + "\"", ops -> {
+            for (int i = 0; i < ops; i++) {
+                game.tick(remaining - i);
+
+                if (queue != null)
+                    for (Runnable r = queue.poll(); r != null; r = queue.poll()) r.run();
+            }
+            return ops;
+        });
+
+        game.reset();
+    }
+
+    // Lets a number of threads change random votes of the same round and checks the result once all of them are done.
+    // Threads pick voters at random, so the same voter is changed by several threads at the same time.
+    private static void contention(int players, int count) throws Exception {
+        Game game           = new Game(0, LocationCatalog.get("en"));
+        AtomicLong votes    = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(count);
+
+        game.prepare(players, 0);
+
+        long start = System.nanoTime();
+        long end   = start + DURATION * ITERATIONS * 1000000L;
+
+        for (int t = 0; t < count; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                long n = 0;
+                while (System.nanoTime() < end) {
+                    for (int i = 0; i < 1000; i++) game.vote(random.nextInt(players), random.nextInt(players));
+                    n += 1000;
+                }
+
+                votes.addAndGet(n);
+                done.countDown();
+            }).start();
+        }
+
+        done.await();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Count the final vote of every voter and compare it against the tallies and the published leader.
+        Player[] seats = game.getPlayers();
+        int[] tally    = new int[players];
+
+        for (Player p : seats)
+            if (p.getSuspectID() >= 0) tally[p.getSuspectID()]++;
+
+        int leader = -1;
+        int best   = 0;
+
+        for (int i = 0; i < players; i++) {
+            if (seats[i].getVotes() != tally[i])
+                throw new IllegalStateException("Player " + i + " has " + seats[i].getVotes() + " votes instead of "
+                                                + tally[i]);
+
+            if (tally[i] > best) {
+                best   = tally[i];
+                leader = i;
+
+            } else if (tally[i] == best) {
+                leader = -1;
+            }
+        }
+
+        Player result = game.voteResult();
+        int published = result != null ? result.getID() : -1;
+
+        if (published != leader)
+            throw new IllegalStateException("Leader is player " + published + " instead of player " + leader);
+
+        record("vote.contention", "\"players\": " + players + ", \"threads\": " + count, "votes/s",
+               votes.get() / seconds, 0, -1);
+    } /* contention */
+
+    // Starts a number of games with a stopwatch each and records the threads they added to the process.
+    private static void stopwatches(int count, int baseline) throws InterruptedException {
+        GameRegistry registry = new GameRegistry(count);
+
+        for (int i = 0; i < count; i++) {
+            Game game = registry.create();
+            game.prepare(4, 60);
+            game.start();
+        }
+
+        Thread.sleep(1500); // Let every stopwatch tick a few times.
+
+        // Live threads of the whole process, not only of the pool, compared to before the first game was started.
+        int added = ManagementFactory.getThreadMXBean().getThreadCount() - baseline;
+
+        // Retire the games so their stopwatches do not keep ticking during the following benchmarks.
+        for (Game g : registry.getGames()) registry.retire(g.getID());
+
+        if (added > Stopwatch.getThreadLimit())
+            throw new IllegalStateException(count + " stopwatches added " + added + " threads instead of at most "
+                                            + Stopwatch.getThreadLimit());
+
+        record("stopwatch.threads", "\"games\": " + count, "threads", added, 0, -1);
+    }
+
+    // Measures the heap used by a registry holding a number of prepared games.
+    private static void density(int count, int players) {
+        GameRegistry registry = new GameRegistry(count);
+
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) registry.create().prepare(players, 0);
+        long after = usedHeap();
+
+        sink += registry.size();
+
+        record("registry.density", "\"games\": " + count + ", \"players\": " + players, "B/game",
+               (double) (after - before) / count, 0, -1);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // Fills a number of lobby tables with players, deals a round and casts a vote at each of them. Records the time
+    // until every player has received their answer. Connections are read one after another by this thread, so the
+    // deal and vote times are an upper bound of what the lobby needs to push the frames.
+    private static void lobby(int tables) throws Exception {
+        GameRegistry registry = new GameRegistry(tables);
+        Lobby lobby           = Lobby.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), registry);
+
+        if (lobby == null) return;
+
+        int seats        = 8;
+        Client[] clients = new Client[tables * seats];
+        String params    = "\"connections\": " + clients.length;
+
+        try {
+            long start = System.nanoTime();
+
+            for (int t = 0; t < tables; t++) {
+                Client host = clients[t * seats] = new Client(lobby.getPort());
+                host.send(Lobby.HOST, ByteBuffer.allocate(4 + 2 + 1).putInt(60).putShort((short) 1).put((byte) 'H'));
+
+                long id = host.expect(Lobby.JOINED).getLong();
+
+                for (int i = 1; i < seats; i++) {
+                    Client c = clients[t * seats + i] = new Client(lobby.getPort());
+                    c.send(Lobby.JOIN, ByteBuffer.allocate(8 + 2 + 1).putLong(id).putShort((short) 1).put((byte) 'P'));
+                    c.expect(Lobby.JOINED);
+                }
+            }
+
+            record("lobby.join", params, "ms", (System.nanoTime() - start) / 1e6, 0, -1);
+
+            // Every table has to end up with exactly one spy and everyone else at the same location.
+            start = System.nanoTime();
+
+            for (int t = 0; t < tables; t++) clients[t * seats].send(Lobby.START, ByteBuffer.allocate(0));
+
+            for (int t = 0; t < tables; t++) {
+                String location = null;
+                int spies       = 0;
+
+                for (int i = 0; i < seats; i++) {
+                    ByteBuffer role = clients[t * seats + i].expect(Lobby.ROLE);
+
+                    if (role.get() != i) throw new IOException("Player was dealt the wrong seat");
+
+                    byte[] place = new byte[role.getShort()];
+                    role.get(place);
+
+                    if (place.length == 0) spies++;
+                    else if (location == null) location = new String(place, StandardCharsets.UTF_8);
+                    else if (!location.equals(new String(place, StandardCharsets.UTF_8)))
+                        throw new IOException("Players of a table were dealt different locations");
+                }
+
+                if (spies != 1) throw new IOException("Table was dealt " + spies + " spies");
+            }
+
+            record("lobby.deal", params, "ms", (System.nanoTime() - start) / 1e6, 0, -1);
+
+            start = System.nanoTime();
+
+            for (int t = 0; t < tables; t++) clients[t * seats + 1].send(Lobby.VOTE, ByteBuffer.allocate(1).put((byte) 0));
+            for (Client c : clients) c.expect(Lobby.VOTED);
+
+            record("lobby.vote", params, "ms", (System.nanoTime() - start) / 1e6, 0, -1);
+
+        } finally {
+            for (Client c : clients) if (c != null) c.close();
+
+            lobby.close();
+        }
+    } /* lobby */
+
+    // Blocking player connection speaking the lobby protocol.
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final OutputStream out;
+
+        Client(int port) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.socket.setTcpNoDelay(true);
+
+            this.in  = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+            this.out = this.socket.getOutputStream();
+        }
+
+        // Writes a frame in one piece. The payload is written up to its position.
+        void send(byte type, ByteBuffer payload) throws IOException {
+            ByteBuffer frame = ByteBuffer.allocate(3 + payload.position());
+            frame.putShort((short) (1 + payload.position())).put(type).put(payload.array(), 0, payload.position());
+
+            this.out.write(frame.array());
+        }
+
+        // Skips frames until one of the given type arrives and returns its payload.
+        ByteBuffer expect(byte type) throws IOException {
+            while (true) {
+                byte[] frame = new byte[this.in.readUnsignedShort()];
+                this.in.readFully(frame);
+
+                if (frame[0] == type) return ByteBuffer.wrap(frame, 1, frame.length - 1);
+
+                if (frame[0] == Lobby.ERROR)
+                    throw new IOException(new String(frame, 3, frame.length - 3, StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.socket.close();
+        }
+    }
+
+    // Warms up and measures a benchmark body and records the average time per operation.
+    private static void measure(String name, String params, Body body) throws Exception {
+        // Find an operation count which roughly fills the target iteration duration.
+        int ops = 1;
+        while (true) {
+            long start = System.nanoTime();
+            sink += body.run(ops);
+
+            if (System.nanoTime() - start > DURATION * 1000000L / 4 || ops >= 1 << 28) break;
+            ops *= 2;
+        }
+
+        ops = Math.max(1, ops * 4);
+
+        for (int i = 0; i < WARMUP; i++) sink += body.run(ops);
+
+        double[] scores = new double[ITERATIONS];
+        long allocated  = 0;
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+
+            sink += body.run(ops);
+
+            scores[i]  = (double) (System.nanoTime() - start) / ops;
+            allocated += allocatedBytes() - bytes;
+        }
+
+        double mean = 0;
+        for (double s : scores) mean += s;
+        mean /= ITERATIONS;
+
+        double variance = 0;
+        for (double s : scores) variance += (s - mean) * (s - mean);
+
+        double error = Math.sqrt(variance / (ITERATIONS - 1));
+        double alloc = threads != null ? (double) allocated / ((long) ops * ITERATIONS) : -1;
+
+        record(name, params, "ns/op", mean, error, alloc);
+    } /* measure */
+
+    // Stores a result and prints it to the console.
+    private static void record(String name, String params, String unit, double score, double error, double alloc) {
+        System.out.println(String.format(java.util.Locale.ROOT, "%-22s %-28s %14.2f %-9s +- %8.2f  alloc %8.1f B/op",
+                                         name, params.replace("\"", ""), score, unit, error, alloc));
+
+        results.add(String.format(java.util.Locale.ROOT,
+                "{\"benchmark\": \"%s\", \"params\": {%s}, \"unit\": \"%s\", \"score\": %.3f, \"error\": %.3f, "
+                + "\"allocBytesPerOp\": %.1f}", name, params, unit, score, error, alloc));
+    }
+
+    private static void write(Path path) throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{\n  \"commit\": \"").append(System.getProperty("bench.commit", "")).append("\",\n");
+        sb.append("  \"jvm\": \"").append(System.getProperty("java.vm.name")).append(' ')
+          .append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"cores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        sb.append("  \"results\": [\n");
+
+        for (int i = 0; i < results.size(); i++)
+            sb.append("    ").append(results.get(i)).append(i < results.size() - 1 ? ",\n" : "\n");
+
+        sb.append("  ]\n}\n");
+
+        Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Generates location data with the given amount of locations.
+    private static byte[] csv(int size) {
+        StringBuilder sb = new StringBuilder("location, role1, role2, role3, role4, role5, role6, role7\n");
+
+        for (int i = 0; i < size; i++) {
+            sb.append("location ").append(i);
+            for (int j = 0; j < 7; j++) sb.append(", role ").append(i % 97).append(' ').append(j);
+            sb.append('\n');
+        }
+
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long allocatedBytes() {
+        return threads != null ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            return bean.isThreadAllocatedMemorySupported() ? bean : null;
+
+        } catch (ClassCastException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    // Describes where the resources are loaded from.
+    private static String layout() {
+        java.net.URL url = Benchmarks.class.getClassLoader().getResource("en_ui.csv");
+
+        return url == null ? "missing" : url.getProtocol();
+    }
+
+    private static boolean run(String filter, String name) {
+        return filter.isEmpty() || name.contains(filter);
+    }
+
+    private static int[] parse(String list) {
+        String[] parts = list.split(",");
+        int[] out      = new int[parts.length];
+
+        for (int i = 0; i < parts.length; i++) out[i] = Integer.parseInt(parts[i].trim());
+
+        return out;
+    }
+}
@@ -0,0 +1,26 @@
+package com.catlinman.spyfall;
+
+import java.io.IOException;
+
+// Signals malformed CSV input. Carries the position within the input at which the problem was found.
+class CSVException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    CSVException(String message, int line, int column) {
+        super("Line " + line + ", column " + column + ": " + message);
+
+        this.line   = line;
+        this.column = column;
+    }
+
+    int getLine() {
+        return this.line;
+    }
+
+    int getColumn() {
+        return this.column;
+    }
+}
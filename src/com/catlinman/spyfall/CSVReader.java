@@ -0,0 +1,186 @@
+package com.catlinman.spyfall;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Streaming tokenizer for the CSV resource files. Input is decoded as UTF-8 in small chunks and records are
+ * handed out one at a time, so memory use only depends on the length of the longest record. Supports quoted
+ * fields with doubled quotes as escapes, LF and CRLF line endings and skips blank lines.
+ */
+final class CSVReader implements Closeable {
+    private static final int BUFFERSIZE = 4096; // Amount of characters decoded at once.
+
+    private final Reader reader;  // Incremental UTF-8 decoding reader.
+    private final char separator; // Field separator character.
+    private final int limit;      // Maximum amount of fields per record. The last field keeps any further separators.
+
+    private final char[] buffer = new char[BUFFERSIZE];
+    private int position = 0; // Read position within the buffer.
+    private int length   = 0; // Amount of valid characters within the buffer.
+
+    private int line       = 1; // Current line of the input.
+    private int column     = 0; // Column of the last read character.
+    private int recordLine = 0; // Line on which the last returned record starts.
+
+    private final StringBuilder field      = new StringBuilder();
+    private final ArrayList<String> fields = new ArrayList<String>();
+
+    /**
+     * Creates a new reader for a UTF-8 encoded stream.
+     * @param InputStream in        Stream to read from. Closed together with this reader.
+     * @param char        separator Field separator character.
+     * @param int         limit     Maximum amount of fields per record. Zero or less for no limit.
+     */
+    CSVReader(InputStream in, char separator, int limit) {
+        // Malformed input is reported instead of being silently replaced.
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                 .onMalformedInput(CodingErrorAction.REPORT)
+                                 .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+        this.reader    = new InputStreamReader(in, decoder);
+        this.separator = separator;
+        this.limit     = limit;
+    }
+
+    /**
+     * Reads the next record of the input.
+     * @return Array of raw untrimmed fields. Returns null once the end of the input has been reached.
+     * @throws CSVException If the record is malformed or the input is not valid UTF-8.
+     */
+    String[] next() throws IOException {
+        this.fields.clear();
+        this.field.setLength(0);
+
+        boolean quoted    = false; // If we are inside of a quoted field.
+        boolean wasQuoted = false; // If the current field has been closed by a quote.
+
+        int c;
+        while ((c = this.read()) != -1) {
+            // Remember where the record starts for error reporting by the caller.
+            if (this.fields.isEmpty() && this.field.length() == 0 && !quoted && !wasQuoted) this.recordLine = this.line;
+
+            if (quoted) {
+                if (c == '"') {
+                    if (this.peek() == '"') { // Doubled quotes are an escaped quote.
+                        this.read();
+                        this.field.append('"');
+
+                    } else {
+                        quoted    = false;
+                        wasQuoted = true;
+                    }
+
+                } else {
+                    // Quoted fields may span several lines.
+                    if (c == '\n') {
+                        this.line++;
+                        this.column = 0;
+                    }
+
+                    this.field.append((char) c);
+                }
+
+                continue;
+            }
+
+            // The last field of a limited record takes the rest of the line as is.
+            boolean last = this.limit > 0 && this.fields.size() == this.limit - 1;
+
+            if (c == '\r' && this.peek() == '\n') {
+                continue; // Handled by the line feed.
+
+            } else if (c == '\n') {
+                // Skip blank lines and keep reading until a record has been found.
+                if (this.fields.isEmpty() && this.field.length() == 0 && !wasQuoted) {
+                    this.line++;
+                    this.column = 0;
+
+                    continue;
+                }
+
+                this.line++;
+                this.column = 0;
+
+                break;
+
+            } else if (c == this.separator && !last) {
+                this.fields.add(this.field.toString());
+                this.field.setLength(0);
+
+                wasQuoted = false;
+
+            } else if (wasQuoted) {
+                // Only whitespace may follow the closing quote of a field.
+                if (!Character.isWhitespace(c))
+                    throw new CSVException("Unexpected character after quoted field", this.line, this.column);
+
+            } else if (c == '"' && !last && this.field.toString().trim().isEmpty()) {
+                this.field.setLength(0); // Whitespace in front of the opening quote is dropped.
+                quoted = true;
+
+            } else {
+                this.field.append((char) c);
+            }
+        }
+
+        if (quoted) throw new CSVException("Unterminated quoted field", this.line, this.column);
+
+        // Nothing left to read.
+        if (c == -1 && this.fields.isEmpty() && this.field.length() == 0 && !wasQuoted) return null;
+
+        this.fields.add(this.field.toString());
+
+        return this.fields.toArray(new String[this.fields.size()]);
+    } /* next */
+
+    /**
+     * Returns the line on which the last returned record started.
+     * @return Line number starting at one.
+     */
+    int getLine() {
+        return this.recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    // Reads the next character and refills the buffer when required.
+    private int read() throws IOException {
+        if (this.position >= this.length && !this.fill()) return -1;
+
+        this.column++;
+
+        return this.buffer[this.position++];
+    }
+
+    // Returns the next character without consuming it.
+    private int peek() throws IOException {
+        if (this.position >= this.length && !this.fill()) return -1;
+
+        return this.buffer[this.position];
+    }
+
+    private boolean fill() throws IOException {
+        try {
+            this.length = this.reader.read(this.buffer, 0, BUFFERSIZE);
+
+        } catch (CharacterCodingException e) {
+            throw new CSVException("Invalid UTF-8 input", this.line, this.column + 1);
+        }
+
+        this.position = 0;
+
+        return this.length > 0;
+    }
+}
@@ -0,0 +1,351 @@
+package com.catlinman.spyfall;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe snapshots of the games of a registry. Every state change and vote of a game only marks the checkpoint
+ * as dirty. A background daemon thread writes at most one snapshot per interval, so a burst of votes results in a
+ * single write. Stopwatch ticks do not change a snapshot at all since rounds in progress are stored with the wall
+ * clock time their stopwatch runs out at. Snapshots are written to a temporary file which is synced and then moved
+ * over the previous one, so the checkpoint file always holds a complete snapshot even if the process dies while
+ * writing.
+ *
+ * Rounds are stored by the seed they were dealt with instead of their location and roles, which keeps a game at
+ * a few dozen bytes. Recovering deals the round again and replays votes and state changes through the regular
+ * game methods, so recovered games are journaled and checkpointed like any other game.
+ *
+ * Layout (big endian): int magic, short version, int game count, int CRC32 of the records, followed by the records.
+ * Record: long game ID, byte state, short length and UTF-8 language key, long seed, int location ID, byte stopwatch
+ * enabled, long time (milliseconds left, or the epoch milliseconds the stopwatch runs out at while INGAME), byte
+ * players, then per player byte suspect and short length and UTF-8 name.
+ */
+final class Checkpoint implements GameListener, Runnable {
+    private static final int MAGIC     = 0x53505943; // "SPYC"
+    private static final short VERSION = 2;
+    private static final int HEADER    = 14;         // Header length in bytes.
+    private static final long INTERVAL = 250;        // Milliseconds between snapshots while games change.
+
+    private final Path path;             // Checkpoint file.
+    private final GameRegistry registry; // Games to checkpoint.
+    private final Thread thread;
+
+    private volatile boolean dirty;   // If a game changed since the last snapshot.
+    private volatile boolean running; // Cleared to stop the writer thread.
+
+    private List<Game> recovered; // Games restored from the previous checkpoint file.
+
+    private Checkpoint(Path path, GameRegistry registry) {
+        this.path     = path;
+        this.registry = registry;
+        this.running  = true;
+
+        this.thread = new Thread(this, "spyfall-checkpoint");
+        this.thread.setDaemon(true); // A final snapshot is written on close instead.
+    }
+
+    /**
+     * Recovers the games of an existing checkpoint file into a registry and starts checkpointing it. Games created
+     * from now on mark the checkpoint on every change.
+     * @param Path         path     Location of the checkpoint file.
+     * @param GameRegistry registry Games to checkpoint.
+     * @return The running checkpoint.
+     */
+    static Checkpoint open(Path path, GameRegistry registry) {
+        Checkpoint checkpoint = new Checkpoint(path, registry);
+
+        // Recovered games are attached to the checkpoint but the file is only replaced once recovery is done.
+        registry.setCheckpoint(checkpoint);
+        checkpoint.recovered = recover(path, registry);
+        checkpoint.thread.start();
+
+        return checkpoint;
+    }
+
+    /**
+     * Returns the games restored when the checkpoint was opened.
+     * @return Recovered games. Empty if nothing was in progress.
+     */
+    List<Game> getRecovered() {
+        return this.recovered;
+    }
+
+    // Ticks only move towards the stored deadline and leave the snapshot as it is.
+    @Override
+    public void tick(Game game, long timeLeft) {}
+
+    @Override
+    public void stateChanged(Game game, Game.State from, Game.State to) {
+        this.dirty = true;
+    }
+
+    @Override
+    public void voteCast(Game game, int voter, int suspect) {
+        this.dirty = true;
+    }
+
+    @Override
+    public void run() {
+        while (this.running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(INTERVAL));
+
+            if (this.dirty) {
+                this.dirty = false; // Cleared first so changes made while writing lead to another snapshot.
+                this.write();
+            }
+        }
+    }
+
+    // Stops the writer thread and writes a final snapshot.
+    void close() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+
+        try {
+            this.thread.join();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.write();
+    }
+
+    // Writes a snapshot of every game with a round in the registry and replaces the previous checkpoint file.
+    private synchronized void write() {
+        long start = System.nanoTime();
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        int count                     = 0;
+
+        try (DataOutputStream out = new DataOutputStream(records)) {
+            for (Game g : this.registry.getGames()) {
+                if (encode(g, out)) count++;
+            }
+
+        } catch (IOException e) {
+            Log.GAME.warn("Checkpoint: {}", e.getMessage());
+            return;
+        }
+
+        byte[] body = records.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + body.length);
+        buffer.putInt(MAGIC).putShort(VERSION).putInt(count).putInt((int) crc.getValue()).put(body);
+        buffer.flip();
+
+        Path temporary = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+
+            channel.force(false); // The data has to be on disk before the move makes it the checkpoint.
+
+        } catch (IOException e) {
+            Log.GAME.warn("Checkpoint: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(temporary, this.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException e) {
+            Log.GAME.warn("Checkpoint: {}", e.getMessage());
+            return;
+        }
+
+        Log.GAME.debug("Checkpointed {} games in {} microseconds.", count, (System.nanoTime() - start) / 1000);
+    } /* write */
+
+    // Encodes a single game. Games without a round are skipped since there is nothing to recover.
+    private static boolean encode(Game game, DataOutputStream out) throws IOException {
+        Game.State state = game.getState();
+
+        // Read every field once. The game may be reset while its snapshot is taken.
+        Location location = game.getLocation();
+        Player[] players  = game.getPlayers();
+
+        if (state == Game.State.WAITING || state == Game.State.PREPARING || location == null || players == null)
+            return false;
+
+        out.writeLong(game.getID());
+        out.writeByte(state.ordinal());
+        writeString(out, game.getLanguage());
+        out.writeLong(game.getSeed());
+        out.writeInt(location.getID());
+        out.writeBoolean(game.hasStopwatch());
+
+        // Rounds in progress store when their time runs out, so the snapshot stays valid while they tick.
+        long time = game.getTimeLeftMillis();
+        out.writeLong(state == Game.State.INGAME ? System.currentTimeMillis() + time : time);
+
+        out.writeByte(players.length);
+
+        for (Player p : players) {
+            out.writeByte(p.getSuspectID());
+            writeString(out, p.getName() != null ? p.getName() : "");
+        }
+
+        return true;
+    } /* encode */
+
+    /**
+     * Restores the games of a checkpoint file into a registry under their previous identifiers. Rounds are dealt
+     * again from their seed and continue with the time they had left.
+     * @param Path         path     Location of the checkpoint file.
+     * @param GameRegistry registry Registry to restore the games into.
+     * @return The recovered games. Empty if there is no checkpoint or it can not be used.
+     */
+    static List<Game> recover(Path path, GameRegistry registry) {
+        ArrayList<Game> recovered = new ArrayList<Game>();
+
+        long start = System.nanoTime();
+
+        ByteBuffer in;
+        try {
+            in = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        } catch (NoSuchFileException e) {
+            return recovered;
+
+        } catch (IOException e) {
+            Log.GAME.warn("Checkpoint: {}", e.getMessage());
+            return recovered;
+        }
+
+        try {
+            if (in.getInt() != MAGIC) throw new IOException("Not a checkpoint file");
+            if (in.getShort() != VERSION) throw new IOException("Unsupported checkpoint version " + in.getShort(4));
+
+            int count = in.getInt();
+            int check = in.getInt();
+
+            CRC32 crc = new CRC32();
+            crc.update(in.array(), HEADER, in.capacity() - HEADER);
+
+            if ((int) crc.getValue() != check) throw new IOException("Checkpoint is corrupt");
+
+            for (int i = 0; i < count; i++) {
+                Game game = restore(in, registry);
+                if (game != null) recovered.add(game);
+            }
+
+        } catch (IOException | BufferUnderflowException e) {
+            Log.GAME.warn("Checkpoint: {}. No games have been recovered.",
+                          e.getMessage() != null ? e.getMessage() : "Checkpoint is truncated");
+
+            for (Game g : recovered) registry.retire(g.getID());
+            recovered.clear();
+        }
+
+        Log.GAME.info("Recovered {} games in {} microseconds.", recovered.size(), (System.nanoTime() - start) / 1000);
+
+        return recovered;
+    } /* recover */
+
+    // Decodes and restores a single game. Returns null if the round can not be dealt the same way again.
+    private static Game restore(ByteBuffer in, GameRegistry registry) {
+        long id           = in.getLong();
+        Game.State state  = Game.State.values()[in.get()];
+        String lang       = readString(in);
+        long seed         = in.getLong();
+        int location      = in.getInt();
+        boolean stopwatch = in.get() != 0;
+        long time         = in.getLong();
+        int count         = in.get();
+
+        int[] suspects = new int[count];
+        String[] names = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            suspects[i] = in.get();
+            names[i]    = readString(in);
+        }
+
+        // Time keeps running for rounds in progress while the program is down. Those which ran out have ended.
+        if (state == Game.State.INGAME) time = Math.max(0, time - System.currentTimeMillis());
+        if (state == Game.State.INGAME && stopwatch && time == 0) state = Game.State.COMPLETED;
+
+        long timeLeft = TimeUnit.MILLISECONDS.toSeconds(time + 999);
+
+        Game game = registry.restore(id, lang);
+        if (game == null) return null;
+
+        // The round is played through the regular game methods again. Its events have been counted and journaled
+        // by the process which recorded the checkpoint already.
+        game.setRestoring(true);
+
+        try {
+            // Prepared with at least a second so a stopwatch which has run out stays enabled.
+            if (game.getCatalog() == null || !game.prepare(count, stopwatch ? Math.max(timeLeft, 1) : 0, seed)
+                || game.getLocation().getID() != location) {
+                Log.GAME.warn("Checkpoint: Game {} can not be recovered. The {} location data has changed.", id,
+                              lang.toUpperCase());
+
+                registry.retire(id);
+
+                return null;
+            }
+
+            Player[] players = game.getPlayers();
+
+            for (int i = 0; i < count; i++) {
+                players[i].setName(names[i]);
+                if (suspects[i] != GameState.NONE) game.vote(i, suspects[i]);
+            }
+
+            if (state == Game.State.PREPARED) return game;
+
+            // Finished rounds are put back into their state directly. Ending them again would count them twice.
+            if (state == Game.State.COMPLETED || state == Game.State.RESOLUTION) {
+                game.restoreFinished(state, timeLeft);
+                return game;
+            }
+
+            game.setTimeLeft(timeLeft);
+            game.start();
+
+            if (state == Game.State.PAUSED) game.pause();
+
+            return game;
+
+        } finally {
+            game.setRestoring(false);
+        }
+    } /* restore */
+
+    // Writes a string as its UTF-8 length and bytes. Longer strings are cut off.
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int length   = Math.min(bytes.length, 0xFFFF);
+
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+package com.catlinman.spyfall;
+
+import java.util.Random;
+
+/**
+ * Picks the spy and deals location roles to every seat of a table in a single pass. Roles are drawn with a
+ * partial Fisher-Yates shuffle over a reusable deck of role indices, so dealing a round does not allocate.
+ *
+ * The distribution matches the previous per player assignment: Each seat in turn has a 1/n chance of becoming
+ * the spy until one has been picked and the last seat is the spy if nobody else was. All other seats receive
+ * distinct roles uniformly at random.
+ */
+final class Dealer {
+    static final int SPY  = -1; // Role index dealt to the spy seat.
+    static final int NONE = -2; // Role index dealt once the location has run out of roles.
+
+    private int[] deck;        // Role indices. The first dealt entries of a round hold the drawn roles.
+    private final int[] seats; // Dealt role index by seat.
+    private int spy = -1;      // Seat of the spy in the last round.
+
+    /**
+     * Creates a dealer for tables of up to the given size.
+     * @param int maxPlayers Maximum amount of seats.
+     */
+    Dealer(int maxPlayers) {
+        this.seats = new int[maxPlayers];
+        this.deck  = new int[maxPlayers];
+    }
+
+    /**
+     * Deals a new round.
+     * @param int    players Amount of seats at the table.
+     * @param int    roles   Amount of roles the location offers.
+     * @param Random random  Source of randomness.
+     */
+    void deal(int players, int roles, Random random) {
+        // The deck only grows if a location offers more roles than any location before it.
+        if (this.deck.length < roles) this.deck = new int[roles];
+
+        for (int i = 0; i < roles; i++) this.deck[i] = i;
+
+        this.spy = -1;
+
+        int dealt = 0; // Amount of roles drawn from the deck.
+
+        for (int i = 0; i < players; i++) {
+            if (this.spy < 0 && (i == players - 1 || random.nextInt(players) == 0)) {
+                this.spy      = i;
+                this.seats[i] = SPY;
+
+            } else if (dealt < roles) {
+                // Draw a random role out of the remaining part of the deck.
+                int j = dealt + random.nextInt(roles - dealt);
+
+                int tmp = this.deck[j];
+                this.deck[j]     = this.deck[dealt];
+                this.deck[dealt] = tmp;
+
+                this.seats[i] = tmp;
+                dealt++;
+
+            } else {
+                this.seats[i] = NONE;
+            }
+        }
+    } /* deal */
+
+    int getSpy() {
+        return this.spy;
+    }
+
+    /**
+     * Returns the dealt role of a seat.
+     * @param int seat Seat index.
+     * @return Role index of the location. SPY for the spy seat and NONE if no role was left.
+     */
+    int getRole(int seat) {
+        return this.seats[seat];
+    }
+}
@@ -1,8 +0,0 @@
-package com.catlinman.spyfall;
-
-// Static debugging class that all other classes access for information.
-class Debug {
-    public static final boolean APP  = false; // If the user interface should show debug elements.
-    public static final boolean GAME = false; // If game information should be printed.
-    public static final boolean DATA = false; // If location information should be printed.
-}
@@ -1,36 +1,81 @@
 package com.catlinman.spyfall;
 
-import java.lang.Thread;
 import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 // Main game entry point. Handles all game logic and timing as well as object interaction.
 public class Game {
+    /**
+     * Lifecycle states of a game. Transitions are validated with compare-and-set so that concurrent calls from
+     * the user interface and the stopwatch resolve without locking and exactly one of them succeeds.
+     * WAITING -> PREPARING -> PREPARED -> INGAME <-> PAUSED -> COMPLETED -> RESOLUTION. Reset returns to WAITING.
+     */
+    public enum State {
+        WAITING,    // No round has been prepared.
+        PREPARING,  // A round is being dealt.
+        PREPARED,   // Location and roles have been dealt.
+        INGAME,     // The round is in progress.
+        PAUSED,     // The round and its stopwatch are paused.
+        COMPLETED,  // The round has finished and waits for its conclusion.
+        RESOLUTION  // The outcome of the round is being shown.
+    }
+
     private static final int MAXPLAYERS   = 8;   // Constant maximum players.
-    private static final long DEFAULTTIME = 480; // Constant default time.
+    private static final long DEFAULTTIME = 480;  // Constant default time.
+    private static final long RESOLUTION  = 1000; // Default time between stopwatch ticks in milliseconds.
+
+    private final long id; // Identifier of this game within its registry.
 
-    private int gamestate  = 0;  // Stores the current game state.
-    private int numPlayers = 0;  // Stores the current amount of players.
-    private int spyID      = -1; // The player ID that has been assigned as spy.
+    private final String lang;             // Language key the location data was loaded with.
+    private final LocationCatalog catalog; // Shared location catalog this game draws its locations from.
 
-    private Location location; // Stores the current game location.
-    private Player[] players;  // Stores the current player objects.
+    // Stores the current game state. Changed through compare-and-set only.
+    private final AtomicReference<State> state = new AtomicReference<State>(State.WAITING);
 
-    private Thread stopwatchThread;                 // Dedicated thread to handle the stopwatch.
-    private boolean stopwatchEnabled = false;       // If the stopwatch thread should be launched.
-    private boolean stopwatchActive  = false;       // If the stopwatch thread should run.
-    private long stopwatchTime       = DEFAULTTIME; // Set a stopwatch time by default.
+    // Deal spy and roles. Shared by the games preparing on the same thread so a game does not carry its own.
+    private static final ThreadLocal<Dealer> dealers = ThreadLocal.withInitial(() -> new Dealer(MAXPLAYERS));
+    private static final ThreadLocal<Random> randoms = ThreadLocal.withInitial(Random::new); // Reseeded per round.
 
-    private Function<Long, Long> stopwatchCallback; // Callback function triggered when the stopwatch value changes.
+    private volatile GameState round; // Location, roles, names and votes of the current round. Null if none.
+    private long seed;                // Seed the current round was dealt with.
+
+    private volatile Stopwatch stopwatch;              // Handle of the stopwatch on the shared scheduler.
+    private boolean stopwatchEnabled    = false;       // If the stopwatch should be scheduled.
+    private volatile long stopwatchTime = DEFAULTTIME; // Seconds left while no stopwatch is running.
+    private volatile long resolution    = RESOLUTION;  // Milliseconds between stopwatch ticks.
+
+    private volatile long startTime; // System.nanoTime of the start of the current round.
+
+    private final ListenerList listeners = new ListenerList(); // Subscribers to the events of this game.
+
+    private volatile Journal journal;   // Records the lifecycle events of this game. Null if not journaled.
+    private volatile boolean restoring; // Set while a round is rebuilt. Nothing is counted or journaled meanwhile.
 
     public Game() {
-        if (Debug.GAME) System.out.println(
-                "Spyfall: New game intilizing. Loading location data for the language key of " + Locale.getCurrent().toUpperCase()
-                + ".");
+        this(0);
+    }
 
-        Location.initialize();
+    /**
+     * Creates a new game with the given identifier. Location data is taken from the shared catalog of the
+     * current language key so that any number of games can exist side by side.
+     * @param long id Identifier of the game. Used by the GameRegistry to look up games.
+     */
+    public Game(long id) {
+        this(id, LocationCatalog.get(Locale.getCurrent()));
+    }
+
+    // Creates a new game which draws its locations from a specific catalog.
+    Game(long id, LocationCatalog catalog) {
+        this.id      = id;
+        this.catalog = catalog;
+        this.lang    = catalog != null ? catalog.getLanguage() : Locale.getCurrent();
+
+        Log.GAME.debug("Game {}: New game initializing. Using location data for the language key of {}.", id, this.lang);
     }
 
     /*   ,ad8888ba,                                                  88                            88
@@ -45,193 +90,324 @@ public class Game {
      *                                                                                  "Y8bbdP"
      */
 
-    public void prepare(int pcount, long time) {
-        if (Debug.GAME) System.out.println("Spyfall: Preparing the game by selection a location and assigning roles.");
+    /**
+     * Selects a location and deals roles for a new round using a random seed. Only possible while the game is waiting.
+     * @param int  pcount Amount of players. Limited to the maximum player count.
+     * @param long time   Stopwatch time in seconds. Zero or less disables the stopwatch.
+     * @return False if the game is not waiting for a new round or has been reset while preparing.
+     */
+    public boolean prepare(int pcount, long time) {
+        return this.prepare(pcount, time, ThreadLocalRandom.current().nextLong());
+    }
 
-        // This should be handled with a return event later on.
-        if (pcount <= MAXPLAYERS)
-            this.numPlayers = pcount;
-        else
-            this.numPlayers = MAXPLAYERS;
+    /**
+     * Selects a location and deals roles for a new round. Rounds prepared with the same seed, player count and
+     * location data are dealt identically.
+     * @param int  pcount Amount of players. Limited to the maximum player count.
+     * @param long time   Stopwatch time in seconds. Zero or less disables the stopwatch.
+     * @param long seed   Seed of the location pick and the deal.
+     * @return False if the game is not waiting for a new round or has been reset while preparing.
+     */
+    public boolean prepare(int pcount, long time, long seed) {
+        // Claim the game for preparation so concurrent calls can not deal the same round twice.
+        if (!this.transition(State.WAITING, State.PREPARING)) {
+            Log.GAME.debug("Game {}: Game can not be prepared while in the {} state.", this.id, this.getState());
+            return false;
+        }
 
-        // Instantiate arrays with the right length.
-        this.players = new Player[this.numPlayers];
+        Log.GAME.debug("Game {}: Preparing the game by selecting a location and assigning roles.", this.id);
+
+        // This should be handled with a return event later on.
+        int count = Math.min(pcount, MAXPLAYERS);
 
         // Setup stopwatch information.
         this.stopwatchTime    = time;
         this.stopwatchEnabled = this.stopwatchTime > 0 ? true : false;
 
-        // Get and instantiate a new location from the location data set.
-        this.location = new Location(this);
+        this.seed     = seed;
+        Random random = randoms.get();
+        random.setSeed(seed);
+
+        // Locations are picked at random from the data set.
+        int location = 0;
+
+        if (this.catalog != null && this.catalog.size() > 0)
+            location = random.nextInt(this.catalog.size());
+        else
+            Log.DATA.warn("No location data present. Aborting location instantiation.");
+
+        this.round = new GameState(this.catalog, location, count);
 
         // Print game location information.
-        if (Debug.GAME) {
-            System.out.println(
-                "Spyfall: Current game location is " + this.location.getID() + ". " + this.location.getName());
-            System.out.println("Spyfall: The roles are " + String.join(", ", this.location.getRoles()));
+        if (Log.GAME.isDebug()) {
+            Location l = this.getLocation();
+
+            Log.GAME.debug("Game {}: Current game location is {}. {}", this.id, l.getID(), l.getName());
+            Log.GAME.debug("Game {}: The roles are {}", this.id, String.join(", ", l.getRoles()));
         }
 
-        this.setRoles(); // Assign roles to players.
+        this.setRoles(); // Assign roles to players. Continues with the random used for the location.
 
-        this.gamestate = 1; // Set that we have reached the preparing gamestate.
-    }
+        // Fails if the game has been reset in the meantime.
+        if (!this.transition(State.PREPARING, State.PREPARED)) return false;
 
-    /*
-     * Prepares game logic and starts the main timer if enabled.
+        Journal j = this.restoring ? null : this.journal;
+        if (j != null) j.prepare(this.id, count, time, seed, location, this.lang);
+
+        return true;
+    } /* prepare */
+
+    /**
+     * Starts a prepared game and its stopwatch if enabled.
+     * @return False if the game has not been prepared.
      */
-    public void start() {
-        if (this.gamestate < 1) {
-            if (Debug.GAME) System.out.println("Spyfall: Game can not start without being prepared first.");
-            return;
+    public boolean start() {
+        // Stopwatch handling. Ticks are driven by the shared stopwatch scheduler instead of a dedicated thread.
+        // The stopwatch is created paused so listeners of the transition already find it but it only runs once the
+        // game is actually in progress.
+        Stopwatch s = null;
+
+        if (this.stopwatchEnabled)
+            s = Stopwatch.create(this::tick, TimeUnit.SECONDS.toNanos(this.stopwatchTime),
+                                 TimeUnit.MILLISECONDS.toNanos(this.resolution));
+
+        if (!this.state.compareAndSet(State.PREPARED, State.INGAME)) {
+            if (s != null) s.cancel();
+
+            Log.GAME.debug("Game {}: Game can not start without being prepared first.", this.id);
+            return false;
         }
 
-        if (Debug.GAME) System.out.println("Spyfall: Game started.");
+        Log.GAME.debug("Game {}: Game started.", this.id);
 
-        this.gamestate = 2;
+        this.startTime = System.nanoTime();
+        if (!this.restoring) Metrics.roundStarted();
 
-        // Stopwatch handling.
-        if (this.stopwatchEnabled) {
-            this.stopwatchActive = true;
+        Journal j = this.restoring ? null : this.journal;
+        if (j != null) j.start(this.id);
 
-            new Thread() {
-                public void run() {
-                    stopwatchTime += 1;
+        this.stopwatch = s;
+        this.listeners.stateChanged(this, State.PREPARED, State.INGAME);
 
-                    while (gamestate == 2) {
-                        try {
-                            if (stopwatchActive == true) {
-                                stopwatchTime--;
-                                if (Debug.GAME) System.out.print(
-                                        "Spyfall: Stopwatch seconds left: " + stopwatchTime + "\r");
+        if (s != null) {
+            this.arm(s); // The first tick fires right away and shows the full time.
 
-                                if(stopwatchCallback != null)
-                                    stopwatchCallback.apply(stopwatchTime);
-                            }
+            // The round ended before the stopwatch was published so nobody else stops it.
+            State now = this.state.get();
+            if (now != State.INGAME && now != State.PAUSED) s.cancel();
+        }
+
+        return true;
+    } /* start */
 
-                            if (stopwatchTime <= 0) {
-                                if (Debug.GAME) System.out.print("\n");
+    // Runs the stopwatch if the game is in progress. Checked under the stopwatch lock since pause() changes the state
+    // before pausing the stopwatch, so a concurrent pause always wins.
+    private void arm(Stopwatch s) {
+        synchronized (s) {
+            if (this.state.get() == State.INGAME) s.resume();
+        }
+    }
 
-                                gameover();
-                            }
+    // Called by the stopwatch scheduler at the tick resolution while the game is in progress. Package-private so the
+    // benchmarks can measure a tick without waiting for the scheduler.
+    void tick(long remaining) {
+        if (this.state.get() != State.INGAME) return; // Leaving the game cancels the stopwatch.
 
-                            Thread.sleep(1000);
+        long seconds = Stopwatch.toSeconds(remaining);
+        Log.GAME.trace("Game {}: Stopwatch seconds left: {}", this.id, seconds);
 
-                        } catch (InterruptedException e) {}
-                    }
-                }
+        this.listeners.tick(this, seconds);
 
-            }.start();
+        if (remaining <= 0) {
+            this.gameover();
         }
-    } /* start */
+    }
+
+    // Stops and releases the stopwatch of this game if one is running. The time it had left is kept.
+    private void cancelStopwatch() {
+        Stopwatch s = this.stopwatch;
+
+        if (s != null) {
+            s.cancel();
+
+            this.stopwatchTime = Stopwatch.toSeconds(s.getRemaining());
+            this.stopwatch     = null;
+        }
+    }
 
     /*
-     * Resets all game variables to their default states.
+     * Resets all game variables to their default states. Always succeeds regardless of the current state.
      */
     public void reset() {
-        this.gamestate        = 0;
-        this.location         = null;
-        this.players          = null;
-        this.spyID            = -1;
+        State previous = this.state.getAndSet(State.WAITING);
+
+        this.cancelStopwatch();
+
+        this.round            = null;
         this.stopwatchEnabled = false;
-        this.stopwatchActive  = false;
         this.stopwatchTime    = 0;
 
-        if (Debug.GAME) System.out.println("Spyfall: The game has been reset.");
+        Log.GAME.debug("Game {}: The game has been reset.", this.id);
+
+        if (previous != State.WAITING) {
+            Journal j = this.journal;
+            if (j != null) j.reset(this.id);
+
+            this.listeners.stateChanged(this, previous, State.WAITING);
+        }
     }
 
-    /*
+    /**
      * Pauses the game and it's handling as well as the stopwatch.
+     * @return False if the game is not in progress.
      */
-    public void pause() {
-        if (this.gamestate == 2) {
-            this.stopwatchActive = false;
+    public boolean pause() {
+        if (!this.transition(State.INGAME, State.PAUSED)) {
+            Log.GAME.debug("Game {}: Game can not be paused since it's not in progress.", this.id);
+            return false;
+        }
+
+        Stopwatch s = this.stopwatch;
+        if (s != null) s.pause(); // Paused stopwatches have no pending ticks at all.
+
+        Journal j = this.restoring ? null : this.journal;
+        if (j != null) j.pause(this.id, this.getTimeLeft());
 
-            if (Debug.GAME) System.out.println("Spyfall: Game has been paused.");
+        Log.GAME.debug("Game {}: Game has been paused.", this.id);
 
-        } else if (Debug.GAME) { System.out.println("Spyfall: Game can not be paused since it's not in progress."); }
+        return true;
     }
 
     /**
      * Resumes the game after being paused.
+     * @return False if the game is not paused.
      */
-    public void resume() {
-        if (this.gamestate == 2) {
-            this.stopwatchActive = true;
+    public boolean resume() {
+        if (!this.transition(State.PAUSED, State.INGAME)) {
+            Log.GAME.debug("Game {}: Game can not be resumed since it's not paused.", this.id);
+            return false;
+        }
+
+        Stopwatch s = this.stopwatch;
+        if (s != null) this.arm(s);
 
-            if (Debug.GAME) System.out.println("Spyfall: Game has been resumed.");
+        Journal j = this.journal;
+        if (j != null) j.resume(this.id);
 
-        } else if (Debug.GAME) { System.out.println("Spyfall: Game can not be resumed since it's not in progress."); }
+        Log.GAME.debug("Game {}: Game has been resumed.", this.id);
+
+        return true;
     }
 
     /**
      * Called by the stopwatch or when a final vote has been raised. Does not reveal information.
+     * @return False if the game was not in progress. Only one of several concurrent calls succeeds.
      */
-    public void gameover() {
-        this.gamestate       = 3; // Set the timeout gamestate.
-        this.stopwatchActive = false;
+    public boolean gameover() {
+        if (!this.transition(State.INGAME, State.COMPLETED) && !this.transition(State.PAUSED, State.COMPLETED)) {
+            Log.GAME.debug("Game {}: Game can not finish since it's not in progress.", this.id);
+            return false;
+        }
+
+        this.cancelStopwatch();
+
+        Metrics.roundFinished(System.nanoTime() - this.startTime);
+
+        Journal j = this.journal;
+        if (j != null) j.gameover(this.id, this.stopwatchTime);
 
-        if (Debug.GAME) System.out.println("Spyfall: Game finished and waiting for conclusion.");
+        Log.GAME.debug("Game {}: Game finished and waiting for conclusion.", this.id);
+
+        this.listeners.gameOver(this);
+
+        return true;
     }
 
     // TODO: Evaluate the game result and state including guesses and votes.
-    public void conclude() {
-        this.gamestate = 4; // Set the conclusion gamestate.
+    /**
+     * Moves a finished game on to its resolution.
+     * @return False if the game has not finished.
+     */
+    public boolean conclude() {
+        if (!this.transition(State.COMPLETED, State.RESOLUTION)) {
+            Log.GAME.debug("Game {}: Game can not be concluded since it has not finished.", this.id);
+            return false;
+        }
+
+        Log.GAME.debug("Game {}: Showing game resolution and outcome.", this.id);
+
+        Journal j = this.journal;
+        if (j != null) j.conclude(this.id);
+
+        return true;
+    }
 
-        if (Debug.GAME) System.out.println("Spyfall: Showing game resolution and outcome.");
+    // Moves the game from one state to another. Fails without side effects if the game is not in the expected state.
+    private boolean transition(State from, State to) {
+        if (!this.state.compareAndSet(from, to)) return false;
+
+        this.listeners.stateChanged(this, from, to);
+
+        return true;
     }
 
     /**
      * Casts a vote from a given player for a player. Voter and suspect must be different players.
+     * Safe to call from any thread. A previous vote of the voter is moved to the new suspect.
      */
     public void vote(int voterid, int suspectid) {
-        if (voterid < 0 || voterid > this.numPlayers - 1 || suspectid < 0 || suspectid > this.numPlayers - 1) {
-            if (Debug.GAME) System.out.println("Spyfall: Invalid player id supplied during vote.");
+        GameState r = this.round;
+
+        if (r == null || !r.vote(voterid, suspectid)) {
+            Log.GAME.debug("Game {}: Invalid player id supplied during vote.", this.id);
             return;
         }
 
-        if (voterid != suspectid) {
-            this.players[voterid].doVote(this.players[suspectid]);
+        if (!this.restoring) Metrics.voteCast();
 
-            if (Debug.GAME) System.out.println(
-                    "Spyfall: Player " + (voterid + 1) + " voted for player " + (suspectid + 1)
-                    + ". Player " + (suspectid + 1) + " now has " + this.players[suspectid].getVotes() + " votes.");
-        }
+        Journal j = this.restoring ? null : this.journal;
+        if (j != null) j.vote(this.id, voterid, suspectid);
+
+        Log.GAME.debug("Game {}: Player {} voted for player {}.", this.id, voterid + 1, suspectid + 1);
+
+        this.listeners.voteCast(this, voterid, suspectid);
     }
 
     /**
-     * Evaluates and counts votes to return the highest voted player.
-     * @return The highest voted player. If there is a tie it returns null.
+     * Returns the highest voted player.
+     * @return The highest voted player. If there is a tie or no votes have been cast it returns null.
      */
     public Player voteResult() {
-        // Comparision values. These should be lower than base values.
-        int v1  = -1;
-        int id1 = -1;
+        GameState r = this.round;
 
-        // Lower than the other comparision values to have them evaluated and possibly replaced.
-        int v2  = -2;
-        int id2 = -2;
+        int leader = r != null ? r.getLeader() : GameState.NONE;
 
-        // Iterate over values and compare them. Get the two highest results and store them.
-        for (int i = 0; i < this.numPlayers; i++)
-            if (this.players[i].getVotes() >= v1) {
-                v2 = v1;
+        return leader != GameState.NONE ? new Player(r, leader) : null;
+    }
 
-                id2 = id1;
+    /**
+     * Rates how well a location guess of the spy names the location of this round. Case, accents, punctuation and
+     * small typos are tolerated.
+     * @param String l Guessed location name.
+     * @return Confidence between zero and one. Zero if the guess names another location or none at all.
+     */
+    public double guess(String l) {
+        GameState r = this.round;
 
-                v1  = this.players[i].getVotes();
-                id1 = i;
-            }
+        if (r == null || this.catalog == null) return 0;
 
-        if (v1 == v2)
-            return null;  // If tied return null.
+        GuessMatcher.Match match = this.catalog.getMatcher().match(l);
+        double confidence        = match.id == r.getLocation() ? match.confidence : 0;
 
-        else
-            return this.players[id1];  // Otherwise return the player by their ID.
+        Journal j = this.journal;
+        if (j != null && l != null) j.guess(this.id, l, confidence);
+
+        return confidence;
     }
 
     // Returns true if the location guess matches up.
     public boolean guessResult(String l) {
-        return l.trim().toLowerCase() == this.location.getName().trim().toLowerCase() ? true : false;
+        return this.guess(l) > 0;
     }
 
     /*  ,ad8888ba,                              ,adba,         ad88888ba
@@ -244,28 +420,63 @@ public class Game {
      *   `"Y88888P"    `"Ybbd8"'    "Y888     `Y8888P"  Yb      "Y88888P"    `"Ybbd8"'    "Y888
      */
 
+    /**
+     * Returns the identifier of this game.
+     * @return Game identifier assigned on creation.
+     */
+    public long getID() {
+        return this.id;
+    }
+
+    /**
+     * Returns the language key this game loaded its location data with.
+     * @return Language key string.
+     */
+    public String getLanguage() {
+        return this.lang;
+    }
+
+    /**
+     * Returns the names of all locations this game can pick from.
+     * @return Array of location names. Empty if no location data could be loaded.
+     */
+    public String[] getLocationNames() {
+        return this.catalog != null ? this.catalog.getNames() : new String[0];
+    }
+
     /**
      * Returns the current game location.
-     * @return Instantiated game location class.
+     * @return View of the location of the current round. Null if no round has been prepared.
      */
     public Location getLocation() {
-        return this.location;
+        GameState r = this.round;
+
+        return r != null ? new Location(this.catalog, r.getLocation()) : null;
     }
 
     /**
-     * Returns the player array.
-     * @return Instantiated player array.
+     * Returns the players of the current round. Players are views of the round, so changes made through them are
+     * seen by the game.
+     * @return New array of player views. Null if no round has been prepared.
      */
     public Player[] getPlayers() {
-        return this.players;
+        GameState r = this.round;
+        if (r == null) return null;
+
+        Player[] players = new Player[r.size()];
+        for (int i = 0; i < players.length; i++) players[i] = new Player(r, i);
+
+        return players;
     }
 
     /**
      * Returns the current player count.
-     * @return Integer count of currently instantiated players..
+     * @return Integer count of the players of the current round. Zero if no round has been prepared.
      */
     public int getNumPlayers() {
-        return this.numPlayers;
+        GameState r = this.round;
+
+        return r != null ? r.size() : 0;
     }
 
     /**
@@ -280,11 +491,12 @@ public class Game {
      * Sets a player to be the game's Spy.
      */
     public void setSpyPlayer(Player p) {
-        this.spyID = p.getID();
-        p.setRole(Locale.get("general-spy"));
+        GameState r = this.round;
+        if (r == null) return;
 
-        if (Debug.GAME)
-            System.out.println("Spyfall: Player " + (p.getID() + 1) + " has been picked as the Spy!");
+        r.setRole(p.getID(), GameState.SPY);
+
+        Log.GAME.debug("Game {}: Player {} has been picked as the Spy!", this.id, p.getID() + 1);
     }
 
     /**
@@ -292,90 +504,173 @@ public class Game {
      * @return Spy player object. If none exists, returns null.
      */
     public Player getSpyPlayer() {
-        // Default spyID is -1 meaning we'll go out of the array.
-        try {
-            return this.players[this.spyID];
+        GameState r = this.round;
 
-        } catch (IndexOutOfBoundsException e) {
-            return null;
-        }
+        return r != null && r.getSpy() != GameState.NONE ? new Player(r, r.getSpy()) : null;
     }
 
     /**
      * Returns the given game's remaining stopwatch time.
-     * @return The remaining time in seconds.
+     * @return The remaining time in seconds. Partial seconds are rounded up.
      */
     public long getTimeLeft() {
-        return this.stopwatchTime;
+        Stopwatch s = this.stopwatch;
+
+        return s != null ? Stopwatch.toSeconds(s.getRemaining()) : this.stopwatchTime;
     }
 
     /**
-     * Sets the callback for the stopwatch change.
-     * @param Function<Long, Long> func Function to be called on stopwatch time change.
+     * Returns the remaining stopwatch time with sub-second precision.
+     * @return The remaining time in milliseconds.
      */
-    public void setStopwatchCallback(Function<Long, Long> func) {
-        this.stopwatchCallback = func;
+    public long getTimeLeftMillis() {
+        Stopwatch s = this.stopwatch;
+
+        return s != null ? TimeUnit.NANOSECONDS.toMillis(s.getRemaining()) : this.stopwatchTime * 1000;
+    }
+
+    /**
+     * Sets the time between stopwatch ticks. Lower values allow sub-second displays. Applies from the next start on.
+     * @param long millis Milliseconds between ticks. Defaults to one second.
+     */
+    public void setTickResolution(long millis) {
+        this.resolution = Math.max(1, millis);
+    }
+
+    // Returns the seed the current round was dealt with.
+    long getSeed() {
+        return this.seed;
+    }
+
+    // Returns if the current round is played with a stopwatch.
+    boolean hasStopwatch() {
+        return this.stopwatchEnabled;
+    }
+
+    // Overrides the remaining stopwatch time. Used to apply recorded times when rebuilding a game.
+    void setTimeLeft(long time) {
+        this.stopwatchTime = time;
+    }
+
+    /**
+     * Moves a prepared round straight to a state it had already reached. Used to rebuild rounds which had ended,
+     * so no stopwatch is run and the round is neither counted in the metrics nor journaled a second time.
+     * @param State state Either COMPLETED or RESOLUTION.
+     * @param long  time  Seconds which were left on the stopwatch when the round ended.
+     * @return False if the game is not prepared or the state is not one of a finished round.
+     */
+    boolean restoreFinished(State state, long time) {
+        if (state != State.COMPLETED && state != State.RESOLUTION) return false;
+
+        this.stopwatchTime = time;
+
+        if (!this.transition(State.PREPARED, State.COMPLETED)) return false;
+
+        this.listeners.gameOver(this);
+
+        if (state == State.RESOLUTION) this.transition(State.COMPLETED, State.RESOLUTION);
+
+        return true;
+    }
+
+    /**
+     * Stops or continues counting and journaling the events of this game. Used while a round is rebuilt through
+     * the regular game methods, since its events have been counted and journaled when they first happened.
+     * @param boolean restoring True while the round is rebuilt.
+     */
+    void setRestoring(boolean restoring) {
+        this.restoring = restoring;
+    }
+
+    /**
+     * Records the lifecycle events of this game from now on.
+     * @param Journal journal Journal to append to. Null stops recording.
+     */
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Registers a listener which is called directly on the thread that fires the event. Stopwatch ticks are fired
+     * on the shared stopwatch threads so these listeners should return quickly.
+     * @param GameListener listener Listener to register.
+     */
+    public void addListener(GameListener listener) {
+        this.listeners.add(listener, null);
+    }
+
+    /**
+     * Registers a listener which receives its events through an executor. Use Platform::runLater to receive
+     * events on the JavaFX thread.
+     * @param GameListener listener Listener to register.
+     * @param Executor     executor Executor the listener is called on.
+     */
+    public void addListener(GameListener listener, Executor executor) {
+        this.listeners.add(listener, executor);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     * @param GameListener listener Listener to remove.
+     * @return True if the listener was registered.
+     */
+    public boolean removeListener(GameListener listener) {
+        return this.listeners.remove(listener);
     }
 
     /**
      * Returns the game's pause state.
-     * @return boolean value of the game pause state.
+     * @return True if the game is paused.
      */
     public boolean getPaused() {
-        return this.stopwatchActive;
+        return this.state.get() == State.PAUSED;
     }
 
     /**
-     * Returns the current gamestate.
-     * Gamestates:
-     * 0 = Waiting
-     * 1 = Prepared
-     * 2 = Ingame
-     * 3 = Completed
-     * 4 = Resolution
-     * @return Gamestate identifier.
+     * Returns the current lifecycle state.
+     * @return Current game state.
      */
-    public int getGamestate() {
-        return this.gamestate;
+    public State getState() {
+        return this.state.get();
+    }
+
+    // Returns the location catalog used by this game.
+    LocationCatalog getCatalog() {
+        return this.catalog;
     }
 
     /*
      * Assigns roles to players.
      */
     public void setRoles() {
+        GameState r = this.round;
+
         // Make sure a location has been initialized.
-        if (this.location == null) {
-            if (Debug.GAME)
-                System.out.println("Spyfall: Can't prepare roles. Game location has not been initialized.");
+        if (r == null) {
+            Log.GAME.debug("Game {}: Can't prepare roles. Game location has not been initialized.", this.id);
 
             return;
         }
 
+        Location location = this.getLocation();
+        Dealer dealer     = dealers.get();
 
-        // Start creating players and assigning roles.
-        for (int i = 0; i < this.numPlayers; i++) {
-            this.players[i] = new Player(i, "Player " + (i + 1));
+        // Pick the spy and deal every role in a single pass. Only the first roles of very large locations are dealt.
+        dealer.deal(r.size(), Math.min(location.getRoleCount(), GameState.MAXROLES), randoms.get());
 
-            if (this.getSpyPlayer() == null && ThreadLocalRandom.current().nextInt(1, this.numPlayers + 1) == 1) {
-                this.setSpyPlayer(this.players[i]); // Random chance to be picked as the spy.
+        // Hand every seat its dealt role index. Seats stay without a role if all roles are taken.
+        for (int i = 0; i < r.size(); i++) {
+            int role = dealer.getRole(i);
 
-            } else {
-                // If not picked as the spy assign a role. Returns null if all roles are taken.
-                this.location.assignRole(this.players[i]);
+            r.setRole(i, role);
 
-                // Print role information.
-                if (Debug.GAME) {
-                    String role = this.players[i].getRole();
+            if (role == Dealer.SPY) {
+                Log.GAME.debug("Game {}: Player {} has been picked as the Spy!", this.id, i + 1);
 
-                    if (role != null)
-                        System.out.println("Spyfall: Player " + (this.players[i].getID() + 1)
-                                           + " has been assigned the role of " + this.players[i].getRole());
-                }
+            } else if (role != Dealer.NONE && Log.GAME.isDebug()) {
+                // Print role information.
+                Log.GAME.debug("Game {}: Player {} has been assigned the role of {}", this.id, i + 1, r.getRoleName(i));
             }
-
-            // If we're at the latest player we check if a spy has been picked. If not, assign this player as the spy.
-            if (i == this.numPlayers - 1 && this.getSpyPlayer() == null)
-                this.setSpyPlayer(this.players[this.numPlayers - 1]);
         }
     } /* setRoles */
 
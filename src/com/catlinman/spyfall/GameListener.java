@@ -0,0 +1,36 @@
+package com.catlinman.spyfall;
+
+/**
+ * Receives events of a game. All methods have empty defaults so listeners only implement what they need.
+ * Listeners are registered with Game.addListener() together with the executor they should be called on.
+ */
+public interface GameListener {
+    /**
+     * Called on every stopwatch tick while the game is in progress.
+     * @param Game game     Game which emitted the event.
+     * @param long timeLeft Remaining stopwatch time in seconds.
+     */
+    default void tick(Game game, long timeLeft) {}
+
+    /**
+     * Called after the game has moved from one lifecycle state to another.
+     * @param Game       game Game which emitted the event.
+     * @param Game.State from Previous state.
+     * @param Game.State to   New state.
+     */
+    default void stateChanged(Game game, Game.State from, Game.State to) {}
+
+    /**
+     * Called after a player has cast or changed their vote.
+     * @param Game game    Game which emitted the event.
+     * @param int  voter   Voting player ID.
+     * @param int  suspect Suspected player ID.
+     */
+    default void voteCast(Game game, int voter, int suspect) {}
+
+    /**
+     * Called once a round has finished either by timeout or by being ended.
+     * @param Game game Game which emitted the event.
+     */
+    default void gameOver(Game game) {}
+}
@@ -0,0 +1,177 @@
+package com.catlinman.spyfall;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session manager which creates, looks up and retires independent games by their identifier. A single registry
+ * can be shared by any number of threads since games do not share any mutable state with each other.
+ *
+ * Heap usage per session: A game with a dealt round of eight players takes up about 380 bytes including its
+ * registry entry, as measured by the registry.density benchmark. The round itself is a compact GameState of 184
+ * bytes and players and locations are views created on demand. Names add their strings once they are set.
+ * Location catalogs are shared between games and only cost around 15 KB once per language. With the default
+ * limit of 10000 sessions a registry is therefore bound to roughly 4 MB of heap and a million sessions fit into
+ * about 380 MB.
+ */
+public class GameRegistry {
+    static final int MAXGAMES = 10000; // Default maximum amount of concurrent sessions.
+
+    private final ConcurrentHashMap<Long, Game> games = new ConcurrentHashMap<Long, Game>(); // Active sessions.
+
+    private final AtomicLong nextID;                          // Identifier handed to the next created game.
+    private final AtomicInteger count = new AtomicInteger(0); // Amount of sessions including pending creations.
+
+    private final int capacity; // Maximum amount of concurrent sessions of this registry.
+
+    private volatile Journal journal;       // Handed to every created game. Null if games are not journaled.
+    private volatile Checkpoint checkpoint; // Listens to every created game. Null if games are not checkpointed.
+
+    public GameRegistry() {
+        this(MAXGAMES);
+    }
+
+    /**
+     * Creates a new registry with a custom session limit.
+     * @param int capacity Maximum amount of games which can be active at the same time.
+     */
+    public GameRegistry(int capacity) {
+        this(capacity, 1);
+    }
+
+    /**
+     * Creates a new registry handing out identifiers from a given one on. Registries which share a journal need
+     * separate identifier ranges since the journal tells games apart by their identifier only.
+     * @param int  capacity Maximum amount of games which can be active at the same time.
+     * @param long firstID  Identifier of the first created game.
+     */
+    GameRegistry(int capacity, long firstID) {
+        this.capacity = capacity;
+        this.nextID   = new AtomicLong(firstID);
+    }
+
+    /**
+     * Creates and registers a new game using the current language key.
+     * @return The new game instance. Returns null if the registry is at capacity.
+     */
+    public Game create() {
+        // Reserve a slot before creating the game so concurrent callers can not overshoot the capacity.
+        if (this.count.incrementAndGet() > this.capacity) {
+            this.count.decrementAndGet();
+
+            Log.GAME.warn("Game registry is full. No new game has been created.");
+
+            return null;
+        }
+
+        Game game = new Game(this.nextID.getAndIncrement());
+        this.attach(game);
+        this.games.put(game.getID(), game);
+
+        Log.GAME.debug("Registered game {}.", game.getID());
+
+        return game;
+    }
+
+    /**
+     * Registers an empty game under the identifier of a recovered game. Identifiers handed out afterwards are
+     * higher than any restored one.
+     * @param long   id   Identifier the game had before.
+     * @param String lang Language key of the location data the game was dealt with.
+     * @return The new game instance. Returns null if the identifier is taken or the registry is at capacity.
+     */
+    Game restore(long id, String lang) {
+        if (this.count.incrementAndGet() > this.capacity) {
+            this.count.decrementAndGet();
+            return null;
+        }
+
+        Game game = new Game(id, LocationCatalog.get(lang));
+        this.attach(game);
+
+        if (this.games.putIfAbsent(id, game) != null) {
+            this.count.decrementAndGet();
+            return null;
+        }
+
+        this.nextID.accumulateAndGet(id + 1, Math::max);
+
+        Log.GAME.debug("Restored game {}.", id);
+
+        return game;
+    }
+
+    // Hands the journal and checkpoint of this registry to a new game.
+    private void attach(Game game) {
+        game.setJournal(this.journal);
+
+        Checkpoint c = this.checkpoint;
+        if (c != null) game.addListener(c);
+    }
+
+    /**
+     * Looks up an active game by its identifier.
+     * @param long id Identifier of the game.
+     * @return The game instance. Returns null if no game with the identifier exists.
+     */
+    public Game get(long id) {
+        return this.games.get(id);
+    }
+
+    /**
+     * Resets and removes a game from the registry.
+     * @param long id Identifier of the game to retire.
+     * @return True if the game existed and has been retired.
+     */
+    public boolean retire(long id) {
+        Game game = this.games.remove(id);
+
+        if (game == null) return false;
+
+        game.reset();
+        this.count.decrementAndGet();
+
+        Log.GAME.debug("Retired game {}.", id);
+
+        return true;
+    }
+
+    /**
+     * Returns the amount of currently active games.
+     * @return Active game count.
+     */
+    public int size() {
+        return this.games.size();
+    }
+
+    /**
+     * Records the lifecycle events of games created from now on.
+     * @param Journal journal Journal to append to. Null stops recording for new games.
+     */
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Checkpoints games created from now on.
+     * @param Checkpoint checkpoint Checkpoint notified of every change. Null stops checkpointing new games.
+     */
+    void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    // Returns a live view of the active games. Iterating it is safe while games are created and retired.
+    Collection<Game> getGames() {
+        return this.games.values();
+    }
+
+    /**
+     * Returns the maximum amount of concurrent games.
+     * @return Session limit of this registry.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+}
@@ -0,0 +1,241 @@
+package com.catlinman.spyfall;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compact state of a single round. Seats are kept in parallel arrays instead of one object per player: Roles are
+ * indices into the roles of the location, the location is its catalog ID and names are only stored once a player
+ * has been given one. Role and location strings therefore stay shared with the catalog. The players handed out by
+ * a game are views which read and write this state.
+ *
+ * Votes stay lock-free. The byte suspect of a seat and the short vote count it received are packed into a single
+ * atomic int per seat, so any number of threads can cast and change votes at the same time. The leader is
+ * republished after every vote together with the sequence number of the vote that computed it, and older results
+ * never replace newer ones, so reading it is a single load. While votes are still being cast the leader may trail
+ * the counters for a moment, but once all votes are in it always matches them exactly.
+ *
+ * Roles and the spy are guarded by this object. They are dealt before the round is published and only change
+ * afterwards through Game.setRoles() and Game.setSpyPlayer().
+ *
+ * Heap usage on a 64-bit JVM with compressed references: 48 bytes for this object, 24 bytes for the roles and
+ * 64 bytes for the packed seats of a full table and 48 bytes for the leader and its sequence, 184 bytes per round
+ * in total. Names add 48 bytes for their array once the first one has been set plus the strings themselves.
+ */
+final class GameState {
+    static final int NONE     = -1;          // Suspect of voters who have not voted and leader of tied or empty tallies.
+    static final int SPY      = Dealer.SPY;  // Role index of the spy seat.
+    static final int NOROLE   = Dealer.NONE; // Role index of seats dealt after the location ran out of roles.
+    static final int MAXROLES = 127;         // Roles of a location which can be dealt. Further roles are never dealt.
+
+    private static final int NOSUSPECT = 0xFF;   // Packed suspect of NONE.
+    private static final int VOTES     = 0xFFFF; // Mask of the vote count of a packed seat.
+    private static final int NOLEADER  = 0xFF;   // Packed leader value of NONE.
+
+    private final LocationCatalog catalog; // Catalog holding the location and role strings.
+    private final int location;            // Catalog ID of the location.
+    private byte spy = NONE;               // Seat of the spy. Guarded by this state.
+
+    private final byte[] roles;             // Role index by seat. Guarded by this state.
+    private final AtomicIntegerArray seats; // Suspect (bits 16 to 23) and received votes (bits 0 to 15) by seat.
+    private String[] names;                 // Names by seat. Null until the first name is set. Guarded by this state.
+
+    private final AtomicLong sequence = new AtomicLong(0); // Counts votes to order leader updates.
+
+    // Packed leader state: Sequence number (40 bits), leader votes (16 bits) and leader (8 bits).
+    private final AtomicLong leader = new AtomicLong(NOLEADER);
+
+    /**
+     * Creates the state of a new round without roles or votes.
+     * @param LocationCatalog catalog  Catalog the location was drawn from. Null if no location data is loaded.
+     * @param int             location Catalog ID of the location.
+     * @param int             players  Amount of seats.
+     */
+    GameState(LocationCatalog catalog, int location, int players) {
+        this.catalog  = catalog;
+        this.location = location;
+
+        this.roles = new byte[players];
+        this.seats = new AtomicIntegerArray(players);
+
+        for (int i = 0; i < players; i++) {
+            this.roles[i] = NOROLE;
+            this.seats.set(i, NOSUSPECT << 16);
+        }
+    }
+
+    int size() {
+        return this.roles.length;
+    }
+
+    int getLocation() {
+        return this.location;
+    }
+
+    LocationCatalog getCatalog() {
+        return this.catalog;
+    }
+
+    synchronized int getSpy() {
+        return this.spy;
+    }
+
+    /**
+     * Returns the dealt role of a seat.
+     * @param int seat Seat index.
+     * @return Role index of the location. SPY for the spy seat and NOROLE if no role was left.
+     */
+    synchronized int getRole(int seat) {
+        return this.roles[seat];
+    }
+
+    /**
+     * Deals a role to a seat. Dealing SPY moves the spy to the seat.
+     * @param int seat Seat index.
+     * @param int role Role index of the location, SPY or NOROLE.
+     */
+    synchronized void setRole(int seat, int role) {
+        if (role == SPY) {
+            if (this.spy != NONE) this.roles[this.spy] = NOROLE;
+
+            this.spy = (byte) seat;
+
+        } else if (seat == this.spy) {
+            this.spy = NONE;
+        }
+
+        this.roles[seat] = (byte) role;
+    }
+
+    /**
+     * Returns the display name of the role of a seat.
+     * @param int seat Seat index.
+     * @return Role name from the catalog or the localized spy name. Null if the seat has no role.
+     */
+    String getRoleName(int seat) {
+        int role = this.getRole(seat);
+
+        if (role == SPY) return Locale.get(Message.GENERAL_SPY);
+        if (role == NOROLE || this.catalog == null) return null;
+
+        return this.catalog.getRole(this.location, role);
+    }
+
+    /**
+     * Returns the name of a seat.
+     * @param int seat Seat index.
+     * @return The name set for the seat or a numbered default name.
+     */
+    synchronized String getName(int seat) {
+        String name = this.names != null ? this.names[seat] : null;
+
+        return name != null ? name : "Player " + (seat + 1);
+    }
+
+    synchronized void setName(int seat, String name) {
+        if (this.names == null) this.names = new String[this.roles.length];
+
+        this.names[seat] = name;
+    }
+
+    /**
+     * Casts or changes the vote of a seat. A previous vote of the voter is moved to the new suspect.
+     * @param int voter   Voting seat.
+     * @param int suspect Suspected seat. Must differ from the voter.
+     * @return False if the seats are invalid or equal.
+     */
+    boolean vote(int voter, int suspect) {
+        int size = this.seats.length();
+
+        if (voter < 0 || voter >= size || suspect < 0 || suspect >= size || voter == suspect) return false;
+
+        // Swap the suspect of the voter while keeping the votes the voter received.
+        int previous;
+
+        while (true) {
+            int cell = this.seats.get(voter);
+            previous = suspect(cell);
+
+            if (previous == suspect) return true;
+
+            if (this.seats.compareAndSet(voter, cell, (cell & VOTES) | suspect << 16)) break;
+        }
+
+        this.count(suspect, 1);
+        if (previous != NONE) this.count(previous, -1);
+
+        this.publish();
+
+        return true;
+    }
+
+    int getSuspect(int voter) {
+        return suspect(this.seats.get(voter));
+    }
+
+    int getVotes(int suspect) {
+        return (short) this.seats.get(suspect);
+    }
+
+    /**
+     * Returns the seat with the most votes.
+     * @return Leading seat. Returns NONE if there is a tie or no votes have been cast.
+     */
+    int getLeader() {
+        int id = (int) (this.leader.get() & 0xFF);
+
+        return id != NOLEADER ? id : NONE;
+    }
+
+    private static int suspect(int cell) {
+        int s = (cell >>> 16) & 0xFF;
+
+        return s != NOSUSPECT ? s : NONE;
+    }
+
+    // Changes the votes a seat received. Counts may dip below zero for a moment while the same voter changes their
+    // vote on several threads, so they are kept as a signed short within their bits instead of being added to the
+    // whole cell.
+    private void count(int seat, int delta) {
+        while (true) {
+            int cell = this.seats.get(seat);
+            int next = (cell & ~VOTES) | (((short) cell + delta) & VOTES);
+
+            if (this.seats.compareAndSet(seat, cell, next)) return;
+        }
+    }
+
+    // Recomputes the leader and publishes it unless a later vote already did. Bounded by the table size.
+    private void publish() {
+        long seq = this.sequence.incrementAndGet();
+
+        int best    = -1;
+        int id      = NOLEADER;
+        boolean tie = false;
+
+        for (int i = 0; i < this.seats.length(); i++) {
+            int v = (short) this.seats.get(i);
+
+            if (v > best) {
+                best = v;
+                id   = i;
+                tie  = false;
+
+            } else if (v == best) {
+                tie = true;
+            }
+        }
+
+        if (tie || best <= 0) id = NOLEADER;
+
+        long packed = (seq << 24) | ((long) (Math.max(best, 0) & 0xFFFF) << 8) | id;
+
+        // Only replace results computed by earlier votes.
+        long current;
+        do {
+            current = this.leader.get();
+            if ((current >>> 24) > seq) return;
+
+        } while (!this.leader.compareAndSet(current, packed));
+    } /* publish */
+}
@@ -0,0 +1,291 @@
+package com.catlinman.spyfall;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves location guesses of the spy against a catalog. Names are normalized once when the matcher is built:
+ * Case is folded, accents are removed and punctuation is reduced to single spaces. German umlauts are also
+ * indexed in their transliterated form so a name containing an umlaut is found when spelled with either the
+ * plain vowel or the vowel followed by an e.
+ *
+ * Exact matches of the normalized guess are resolved with a hash lookup. Otherwise the closest name within a small
+ * edit distance is searched, which grows with the length of the guess so typos are forgiven while short guesses
+ * can not accidentally match unrelated locations. Candidates for the edit distance check come from an inverted
+ * index of letter trigrams: Every edit changes at most three trigrams, so a name within k edits shares at least
+ * all but 3k of the trigrams of the guess. It therefore has to share one of the 3k + 1 rarest trigrams of the guess
+ * and only the names listed for those are compared, which keeps fuzzy lookups fast for very large catalogs.
+ * Matchers are immutable after construction and can be shared by threads.
+ */
+final class GuessMatcher {
+    private static final int MAXDISTANCE = 3;   // Upper bound of the edit distance tolerated for long guesses.
+    private static final char PAD        = '$'; // Marks the start and end of a key so its edges form trigrams.
+
+    /**
+     * Result of a guess.
+     */
+    static final class Match {
+        static final Match NONE = new Match(-1, 0);
+
+        final int id;            // Matched location ID. Negative if nothing matched.
+        final double confidence; // One for exact matches and lower the more edits were needed.
+
+        Match(int id, double confidence) {
+            this.id         = id;
+            this.confidence = confidence;
+        }
+    }
+
+    private final HashMap<String, Integer> exact = new HashMap<String, Integer>(); // Key index by normalized key.
+
+    private String[] keys = new String[16]; // Normalized keys by key index.
+    private int[] ids     = new int[16];    // Location ID by key index.
+    private int count;                      // Amount of keys.
+
+    private final HashMap<Long, int[]> grams = new HashMap<Long, int[]>(); // Key indices by trigram.
+
+    // Candidate markers by key index used while searching. Kept per thread since they are as large as the index.
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[this.count]);
+
+    /**
+     * Builds the matcher for a catalog.
+     * @param LocationCatalog catalog Locations to match against.
+     */
+    GuessMatcher(LocationCatalog catalog) {
+        for (int i = 0; i < catalog.size(); i++) {
+            String name = catalog.getName(i);
+
+            this.add(normalize(name), i);
+            this.add(normalize(transliterate(name)), i);
+        }
+
+        // Posting lists are built with a leading length slot and spare capacity. Trim them to their entries.
+        for (Map.Entry<Long, int[]> e : this.grams.entrySet()) {
+            int[] list = e.getValue();
+            e.setValue(Arrays.copyOfRange(list, 1, list[0] + 1));
+        }
+
+        this.keys = Arrays.copyOf(this.keys, this.count);
+        this.ids  = Arrays.copyOf(this.ids, this.count);
+    }
+
+    /**
+     * Finds the location a guess refers to.
+     * @param String guess Location name as entered by the player.
+     * @return The best match. Returns Match.NONE if no location is close enough.
+     */
+    Match match(String guess) {
+        if (guess == null) return Match.NONE;
+
+        String key = normalize(guess);
+        if (key.isEmpty()) return Match.NONE;
+
+        Integer index = this.exact.get(key);
+        if (index != null) return new Match(this.ids[index], 1);
+
+        // Allow roughly one edit per four characters.
+        int limit = Math.min(MAXDISTANCE, key.length() / 4);
+        if (limit == 0) return Match.NONE;
+
+        // Posting lists of the trigrams of the guess ordered from rarest to most common.
+        long[] query  = trigrams(key);
+        int[][] lists = new int[query.length][];
+
+        for (int i = 0; i < query.length; i++) {
+            int[] list = this.grams.get(query[i]);
+            lists[i]   = list != null ? list : new int[0];
+        }
+
+        Arrays.sort(lists, (a, b) -> a.length - b.length);
+
+        int[] seen    = this.scratch.get();
+        int[] touched = new int[64];
+        int size      = 0;
+
+        // Collect every key listed for one of the rarest trigrams. Keys missing from all of them are too far away.
+        for (int i = 0; i < Math.min(lists.length, 3 * limit + 1); i++) {
+            for (int k : lists[i]) {
+                if (seen[k]++ == 0) {
+                    if (size == touched.length) touched = Arrays.copyOf(touched, size * 2);
+                    touched[size++] = k;
+                }
+            }
+        }
+
+        int best     = -1;
+        int distance = limit + 1;
+
+        for (int i = 0; i < size; i++) {
+            int k = touched[i];
+
+            int d = distance(key, this.keys[k], distance);
+
+            // Ties go to the lower location ID so results do not depend on the index order.
+            if (d < distance || (d == distance && best >= 0 && this.ids[k] < this.ids[best])) {
+                distance = d;
+                best     = k;
+            }
+
+            seen[k] = 0; // Leave the markers cleared for the next search.
+        }
+
+        if (best < 0) return Match.NONE;
+
+        return new Match(this.ids[best], 1 - (double) distance / Math.max(key.length(), this.keys[best].length()));
+    } /* match */
+
+    /**
+     * Normalizes a name for matching. Folds case, removes accents and reduces everything that is not a letter or a
+     * digit to single spaces.
+     * @param String in Name to normalize.
+     * @return Normalized key.
+     */
+    static String normalize(String in) {
+        // Decompose accented characters so their marks can be dropped. Upper casing first folds characters such as
+        // the sharp s which only have a multi character case mapping.
+        String folded = Normalizer.normalize(in.toUpperCase(java.util.Locale.ROOT), Normalizer.Form.NFKD)
+                                  .toLowerCase(java.util.Locale.ROOT);
+
+        StringBuilder sb = new StringBuilder(folded.length());
+        boolean space    = false;
+
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+
+            if (Character.isLetterOrDigit(c)) {
+                if (space && sb.length() > 0) sb.append(' ');
+
+                sb.append(c);
+                space = false;
+
+            } else {
+                space = true;
+            }
+        }
+
+        return sb.toString();
+    } /* normalize */
+
+    // Replaces German umlauts with their common two letter spelling.
+    static String transliterate(String in) {
+        StringBuilder sb = new StringBuilder(in.length() + 4);
+
+        for (int i = 0; i < in.length(); i++) {
+            char c = in.charAt(i);
+
+            switch (c) {
+                case '\u00e4': sb.append("ae"); break;
+                case '\u00f6': sb.append("oe"); break;
+                case '\u00fc': sb.append("ue"); break;
+                case '\u00c4': sb.append("Ae"); break;
+                case '\u00d6': sb.append("Oe"); break;
+                case '\u00dc': sb.append("Ue"); break;
+                default:  sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    // Adds a key to the hash index and the trigram index. Keys which are already present keep their first location.
+    private void add(String key, int id) {
+        if (key.isEmpty() || this.exact.putIfAbsent(key, this.count) != null) return;
+
+        if (this.count == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.count * 2);
+            this.ids  = Arrays.copyOf(this.ids, this.count * 2);
+        }
+
+        this.keys[this.count] = key;
+        this.ids[this.count]  = id;
+
+        for (long g : trigrams(key)) {
+            int[] list = this.grams.get(g);
+
+            if (list == null) {
+                list = new int[4];
+                this.grams.put(g, list);
+
+            } else if (list[0] + 1 == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                this.grams.put(g, list);
+            }
+
+            list[++list[0]] = this.count;
+        }
+
+        this.count++;
+    } /* add */
+
+    // Returns the distinct trigrams of a padded key. Each trigram is packed into a single long.
+    private static long[] trigrams(String key) {
+        String padded = "" + PAD + PAD + key + PAD + PAD;
+        long[] out    = new long[padded.length() - 2];
+
+        for (int i = 0; i < out.length; i++)
+            out[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+
+        // Repeated trigrams must only be counted once per key.
+        Arrays.sort(out);
+
+        int n = 0;
+        for (int i = 0; i < out.length; i++)
+            if (i == 0 || out[i] != out[i - 1]) out[n++] = out[i];
+
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Levenshtein distance between two strings. Only cells within the bound of the diagonal are computed and the
+     * computation stops early once the distance is known to exceed the bound.
+     * @param String a     First string.
+     * @param String b     Second string.
+     * @param int    bound Distance above which the exact value is not needed.
+     * @return The distance, or bound + 1 if the distance exceeds the bound.
+     */
+    static int distance(String a, String b, int bound) {
+        int n = a.length();
+        int m = b.length();
+
+        if (Math.abs(n - m) > bound) return bound + 1;
+
+        int over = bound + 1; // Value of every cell outside of the band.
+
+        int[] previous = new int[m + 1];
+        int[] current  = new int[m + 1];
+
+        for (int j = 0; j <= m; j++) previous[j] = Math.min(j, over);
+
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - bound);
+            int to   = Math.min(m, i + bound);
+
+            current[0] = Math.min(i, over);
+            if (from > 1) current[from - 1] = over;
+
+            int lowest = current[0];
+
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int cell = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+
+                current[j] = Math.min(cell, over);
+                lowest     = Math.min(lowest, current[j]);
+            }
+
+            if (to < m) current[to + 1] = over;
+
+            if (lowest > bound) return over;
+
+            int[] swap = previous;
+            previous   = current;
+            current    = swap;
+        }
+
+        return previous[m];
+    } /* distance */
+}
@@ -0,0 +1,402 @@
+package com.catlinman.spyfall;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only binary log of game lifecycle events. Every round is recorded together with the seed it was dealt
+ * with, so replaying the journal rebuilds each game exactly: The same location, spy and roles followed by the same
+ * votes, guesses and state changes.
+ *
+ * Events are encoded into an in-memory buffer and written to the file in batches, either when the buffer fills up
+ * or when a round ends. Recording an event is therefore a short synchronized copy without any system call. A crash
+ * loses at most the events of rounds which were still in progress, and a torn record at the end of the file is
+ * ignored when replaying.
+ *
+ * Layout (big endian): int magic, short version, followed by records. Every record starts with a byte type and the
+ * long game ID. OPEN records mark a new process and use the game ID for the wall clock time in milliseconds.
+ * PREPARE: byte players, long time, long seed, int location ID, short length and UTF-8 language key.
+ * PAUSE and GAMEOVER: long seconds left. VOTE: byte voter, byte suspect. GUESS: double confidence, short length and
+ * UTF-8 guess. All other records carry no payload.
+ *
+ * Game IDs start over with every process, so replaying keeps the games of every process which appended to the file
+ * apart. Rounds recovered from a checkpoint are not journaled again and carry over from the process before. Running this class replays a journal file and prints the rebuilt games.
+ */
+final class Journal implements AutoCloseable {
+    private static final int MAGIC     = 0x5350594a; // "SPYJ"
+    private static final short VERSION = 1;
+    private static final int HEADER    = 6;          // Header length in bytes.
+    private static final int CAPACITY  = 1 << 16;    // Size of the write buffer in bytes.
+
+    // Record types.
+    private static final byte OPEN     = 0;
+    private static final byte PREPARE  = 1;
+    private static final byte START    = 2;
+    private static final byte PAUSE    = 3;
+    private static final byte RESUME   = 4;
+    private static final byte VOTE     = 5;
+    private static final byte GUESS    = 6;
+    private static final byte GAMEOVER = 7;
+    private static final byte CONCLUDE = 8;
+    private static final byte RESET    = 9;
+
+    private final FileChannel channel; // Journal file opened for appending.
+    private final ByteBuffer buffer;   // Encoded events which have not been written yet.
+
+    private Journal(FileChannel channel) {
+        this.channel = channel;
+        this.buffer  = ByteBuffer.allocateDirect(CAPACITY);
+    }
+
+    /**
+     * Opens a journal file for appending. The file is created if it does not exist yet.
+     * @param Path path Location of the journal file.
+     * @return The opened journal. Returns null if the file can not be written or is not a journal.
+     */
+    static Journal open(Path path) {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE);
+
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putShort(VERSION);
+                header.flip();
+
+                while (header.hasRemaining()) channel.write(header);
+
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                channel.read(header, 0);
+
+                if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION) {
+                    channel.close();
+                    Log.GAME.warn("Journal: {} is not a supported journal file.", path);
+
+                    return null;
+                }
+            }
+
+            channel.position(channel.size());
+
+            Journal journal = new Journal(channel);
+            journal.begin(OPEN, System.currentTimeMillis(), 0);
+
+            return journal;
+
+        } catch (IOException e) {
+            Log.GAME.warn("Journal: {}", e.getMessage());
+
+            return null;
+        }
+    } /* open */
+
+    synchronized void prepare(long game, int players, long time, long seed, int location, String lang) {
+        byte[] key = lang.getBytes(StandardCharsets.UTF_8);
+
+        this.begin(PREPARE, game, 1 + 8 + 8 + 4 + 2 + key.length);
+        this.buffer.put((byte) players).putLong(time).putLong(seed).putInt(location);
+        this.buffer.putShort((short) key.length).put(key);
+    }
+
+    synchronized void start(long game) {
+        this.begin(START, game, 0);
+    }
+
+    synchronized void pause(long game, long timeLeft) {
+        this.begin(PAUSE, game, 8);
+        this.buffer.putLong(timeLeft);
+    }
+
+    synchronized void resume(long game) {
+        this.begin(RESUME, game, 0);
+    }
+
+    synchronized void vote(long game, int voter, int suspect) {
+        this.begin(VOTE, game, 2);
+        this.buffer.put((byte) voter).put((byte) suspect);
+    }
+
+    synchronized void guess(long game, String guess, double confidence) {
+        byte[] text = guess.getBytes(StandardCharsets.UTF_8);
+        int length  = Math.min(text.length, Short.MAX_VALUE);
+
+        this.begin(GUESS, game, 8 + 2 + length);
+        this.buffer.putDouble(confidence).putShort((short) length).put(text, 0, length);
+    }
+
+    // Rounds end here so their events are written out right away.
+    synchronized void gameover(long game, long timeLeft) {
+        this.begin(GAMEOVER, game, 8);
+        this.buffer.putLong(timeLeft);
+        this.flush();
+    }
+
+    synchronized void conclude(long game) {
+        this.begin(CONCLUDE, game, 0);
+    }
+
+    synchronized void reset(long game) {
+        this.begin(RESET, game, 0);
+        this.flush();
+    }
+
+    // Writes the record header. Flushes the buffer first if the record does not fit anymore.
+    private void begin(byte type, long game, int payload) {
+        if (this.buffer.remaining() < 9 + payload) this.flush();
+
+        this.buffer.put(type).putLong(game);
+    }
+
+    /**
+     * Writes all buffered events to the file. Errors are reported and the buffered events are dropped so a
+     * failing disk never blocks the games.
+     */
+    synchronized void flush() {
+        this.buffer.flip();
+
+        try {
+            while (this.buffer.hasRemaining()) this.channel.write(this.buffer);
+
+        } catch (IOException e) {
+            Log.GAME.warn("Journal: {}", e.getMessage());
+        }
+
+        this.buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        this.flush();
+
+        try {
+            this.channel.close();
+
+        } catch (IOException e) {
+            Log.GAME.warn("Journal: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the games recorded in a journal file. Games are replayed through the regular game methods without
+     * a stopwatch. Recorded times are applied instead.
+     * @param Path path Location of the journal file.
+     * @return Rebuilt games by their game ID, one map for every process which used the journal in the order they
+     *         opened it. Games recovered from a checkpoint belong to the process which continued them.
+     * @throws IOException If the file can not be read, is not a journal or a round can not be dealt again.
+     */
+    static List<Map<Long, Game>> replay(Path path) throws IOException {
+        ArrayList<Map<Long, Game>> processes = new ArrayList<Map<Long, Game>>();
+        LinkedHashMap<Long, Game> games      = new LinkedHashMap<Long, Game>(); // Games of the current process.
+        LinkedHashMap<Long, Game> previous   = new LinkedHashMap<Long, Game>(); // Games of the process before.
+
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (in.capacity() < HEADER || in.getInt() != MAGIC) throw new IOException("Not a journal file");
+        if (in.getShort() != VERSION) throw new IOException("Unsupported journal version " + in.getShort(4));
+
+        while (in.hasRemaining()) {
+            int position = in.position();
+
+            try {
+                byte type = in.get();
+                long id   = in.getLong();
+
+                if (type == OPEN) {
+                    // Game IDs start over with every process. Games of earlier processes are kept in their own map.
+                    if (!games.isEmpty()) processes.add(games);
+
+                    previous = games;
+                    games    = new LinkedHashMap<Long, Game>();
+                    continue;
+                }
+
+                if (type == PREPARE) {
+                    int players  = in.get();
+                    long time    = in.getLong();
+                    long seed    = in.getLong();
+                    int location = in.getInt();
+
+                    String lang = readString(in);
+                    Game game   = games.computeIfAbsent(id, k -> new Game(k, LocationCatalog.get(lang)));
+
+                    // Dealing without a stopwatch keeps the replay independent of the clock.
+                    if (!game.prepare(players, 0, seed))
+                        throw new IOException("Game " + id + " can not be prepared again");
+
+                    if (game.getLocation().getID() != location)
+                        throw new IOException("Game " + id + " dealt a different location. The "
+                                              + lang.toUpperCase() + " location data has changed since recording");
+
+                    game.setTimeLeft(time);
+                    continue;
+                }
+
+                Game game = games.get(id);
+
+                // Rounds recovered from a checkpoint are not journaled again and continue where the process before
+                // left them. Their round is lost if that process crashed before it was written.
+                if (game == null) {
+                    game = previous.remove(id);
+
+                    if (game == null) {
+                        Log.GAME.debug("Journal: Ignoring event of lost round of game {} at byte {}.", id, position);
+                        skip(in, type);
+                        continue;
+                    }
+
+                    games.put(id, game);
+                }
+
+                switch (type) {
+                    case START:
+                        game.start();
+                        break;
+
+                    case PAUSE:
+                        game.setTimeLeft(in.getLong());
+                        game.pause();
+                        break;
+
+                    case RESUME:
+                        game.resume();
+                        break;
+
+                    case VOTE:
+                        int voter = in.get();
+                        game.vote(voter, in.get());
+                        break;
+
+                    case GUESS:
+                        double confidence = in.getDouble();
+
+                        if (game.guess(readString(in)) != confidence)
+                            throw new IOException("Game " + id + " rated a guess differently");
+
+                        break;
+
+                    case GAMEOVER:
+                        game.setTimeLeft(in.getLong());
+                        game.gameover();
+                        break;
+
+                    case CONCLUDE:
+                        game.conclude();
+                        break;
+
+                    case RESET:
+                        game.reset();
+                        break;
+
+                    default:
+                        throw new IOException("Unknown record type " + type + " at byte " + position);
+                }
+
+            } catch (BufferUnderflowException e) {
+                // The process stopped while writing this record. Everything before it is intact.
+                Log.GAME.debug("Journal: Ignoring torn record at byte {}.", position);
+
+                break;
+            }
+        }
+
+        if (!games.isEmpty()) processes.add(games);
+
+        return processes;
+    } /* replay */
+
+    // Skips the payload of a record. Unknown record types can not be skipped.
+    private static void skip(ByteBuffer in, byte type) throws IOException {
+        switch (type) {
+            case PAUSE:
+            case GAMEOVER:
+                in.getLong();
+                break;
+
+            case VOTE:
+                in.getShort();
+                break;
+
+            case GUESS:
+                in.getDouble();
+                readString(in);
+                break;
+
+            case START:
+            case RESUME:
+            case CONCLUDE:
+            case RESET:
+                break;
+
+            default:
+                throw new IOException("Unknown record type " + type + " at byte " + in.position());
+        }
+    }
+
+    // Reads a string as its unsigned length and UTF-8 bytes. A length past the end of the file is a torn record.
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length > in.remaining()) throw new BufferUnderflowException();
+
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: Journal <journal file>");
+            return;
+        }
+
+        Locale.initialize(null); // Spy roles are labeled with the localized spy name.
+
+        List<Map<Long, Game>> processes = replay(Paths.get(args[0]));
+        int count                       = 0;
+
+        for (int i = 0; i < processes.size(); i++) {
+            System.out.println("Process " + (i + 1) + ":");
+
+            for (Game g : processes.get(i).values()) print(g);
+
+            count += processes.get(i).size();
+        }
+
+        System.out.println("Replayed " + count + " games of " + processes.size() + " processes from " + args[0] + ".");
+    }
+
+    // Prints the state, location, roles and vote leader of a rebuilt game.
+    private static void print(Game g) {
+        StringBuilder sb = new StringBuilder("  ");
+
+        sb.append("Game ").append(g.getID()).append(" (").append(g.getLanguage().toUpperCase()).append("): ");
+        sb.append(g.getState());
+
+        if (g.getLocation() != null) {
+            sb.append(", ").append(g.getLocation().getName());
+            sb.append(", ").append(g.getTimeLeft()).append(" seconds left");
+
+            for (Player p : g.getPlayers())
+                sb.append(", ").append(p.getName()).append(": ").append(p.getRole() != null ? p.getRole() : "-");
+
+            Player leader = g.voteResult();
+            if (leader != null) sb.append(", most votes: ").append(leader.getName());
+        }
+
+        System.out.println(sb);
+    }
+}
@@ -0,0 +1,95 @@
+package com.catlinman.spyfall;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Copy-on-write list of game listeners. Registering copies the subscription array while dispatching only reads the
+ * current array, so events can be fired from any thread without locking. Listeners without an executor are called
+ * directly on the firing thread in which case dispatching does not allocate. Listeners with an executor receive
+ * their events as tasks submitted to it, for example Platform::runLater for the JavaFX thread.
+ */
+final class ListenerList {
+    private static final Subscription[] EMPTY = new Subscription[0];
+
+    private volatile Subscription[] subscriptions = EMPTY; // Current subscriptions. Never modified once published.
+
+    // Pairs a listener with the executor it is called on.
+    private static final class Subscription {
+        final GameListener listener;
+        final Executor executor; // Null for direct calls on the firing thread.
+
+        Subscription(GameListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    synchronized void add(GameListener listener, Executor executor) {
+        Subscription[] current = this.subscriptions;
+        Subscription[] next    = new Subscription[current.length + 1];
+
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = new Subscription(listener, executor);
+
+        this.subscriptions = next;
+    }
+
+    synchronized boolean remove(GameListener listener) {
+        Subscription[] current = this.subscriptions;
+
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].listener == listener) {
+                Subscription[] next = new Subscription[current.length - 1];
+
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+
+                this.subscriptions = next;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    boolean isEmpty() {
+        return this.subscriptions.length == 0;
+    }
+
+    void tick(Game game, long timeLeft) {
+        for (Subscription s : this.subscriptions) {
+            if (s.executor == null)
+                s.listener.tick(game, timeLeft);
+            else
+                s.executor.execute(() -> s.listener.tick(game, timeLeft));
+        }
+    }
+
+    void stateChanged(Game game, Game.State from, Game.State to) {
+        for (Subscription s : this.subscriptions) {
+            if (s.executor == null)
+                s.listener.stateChanged(game, from, to);
+            else
+                s.executor.execute(() -> s.listener.stateChanged(game, from, to));
+        }
+    }
+
+    void voteCast(Game game, int voter, int suspect) {
+        for (Subscription s : this.subscriptions) {
+            if (s.executor == null)
+                s.listener.voteCast(game, voter, suspect);
+            else
+                s.executor.execute(() -> s.listener.voteCast(game, voter, suspect));
+        }
+    }
+
+    void gameOver(Game game) {
+        for (Subscription s : this.subscriptions) {
+            if (s.executor == null)
+                s.listener.gameOver(game);
+            else
+                s.executor.execute(() -> s.listener.gameOver(game));
+        }
+    }
+}
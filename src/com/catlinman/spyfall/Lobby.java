@@ -0,0 +1,571 @@
+package com.catlinman.spyfall;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Network lobby which lets every player join a table from their own device. A table is a game of the registry.
+ * Once a round is started each player is sent only their own seat, role and location while stopwatch ticks, state
+ * changes and votes are pushed to everyone at the table at once.
+ *
+ * All connections are served by a single thread blocking on a Selector, so thousands of idle players cost a socket
+ * and a small read buffer each instead of a thread. Game events arrive on other threads and are handed to the
+ * selector thread as tasks. Broadcasts encode a frame once and share its bytes between every connection of a table.
+ * Connections which fall too far behind on reading their frames are dropped instead of buffering without bound.
+ *
+ * Frames (big endian): unsigned short length of the rest of the frame, byte type, payload. Strings are a short
+ * length followed by UTF-8 bytes.
+ * Client: HOST int seconds (zero or less disables the stopwatch), string name. JOIN long game ID, string name.
+ * START. VOTE byte suspect seat. GUESS string location. PAUSE. RESUME.
+ * PAUSE and RESUME are only accepted from the host, which passes to the longest seated player if the host leaves.
+ * Server: JOINED long game ID. ROSTER byte count, strings names. ROLE byte seat, string location (empty for the
+ * spy), string role. TICK long seconds left. STATE byte state ordinal. VOTED byte voter seat, byte suspect seat.
+ * GUESSED double confidence. ERROR string message.
+ */
+final class Lobby implements Runnable, Executor, GameListener {
+    static final int MAXFRAME = 1024;      // Longest frame accepted after the length field.
+    static final long FIRSTID = 1L << 32; // First game ID of a table registry. Keeps tables apart from local games.
+
+    // Client frame types.
+    static final byte HOST   = 1;
+    static final byte JOIN   = 2;
+    static final byte START  = 3;
+    static final byte VOTE   = 4;
+    static final byte GUESS  = 5;
+    static final byte PAUSE  = 6;
+    static final byte RESUME = 7;
+
+    // Server frame types.
+    static final byte JOINED  = 64;
+    static final byte ROSTER  = 65;
+    static final byte ROLE    = 66;
+    static final byte TICK    = 67;
+    static final byte STATE   = 68;
+    static final byte VOTED   = 69;
+    static final byte GUESSED = 70;
+    static final byte ERROR   = 71;
+
+    private static final int MINPLAYERS = 3;         // Smallest table a round can be started with.
+    private static final int MAXQUEUED  = 64 * 1024; // Unsent bytes after which a connection is considered dead.
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final GameRegistry registry; // Creates the games of the tables.
+    private final Thread thread;
+
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>(); // For the selector.
+    private final AtomicBoolean woken                   = new AtomicBoolean(false); // If a wakeup is pending.
+
+    private final HashMap<Long, Table> tables = new HashMap<Long, Table>(); // Open tables by game ID.
+
+    private volatile boolean running;
+    private volatile int connections; // Open connections. Written by the selector thread only.
+
+    // Players at a table. Only used on the selector thread.
+    private static final class Table {
+        final Game game;
+        final long seconds; // Stopwatch time of every round.
+
+        final ArrayList<Connection> members = new ArrayList<Connection>(); // Connected players in joining order.
+        Connection[] seats                  = new Connection[0];           // Seating of the current round.
+        Connection host;                                                   // Player controlling the stopwatch.
+
+        Table(Game game, long seconds) {
+            this.game    = game;
+            this.seconds = seconds;
+        }
+    }
+
+    // State of a single player connection. Only used on the selector thread.
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in              = ByteBuffer.allocate(2 + MAXFRAME); // Bytes of incomplete frames.
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<ByteBuffer>();      // Frames waiting to be written.
+
+        SelectionKey key;
+        int queued;    // Bytes waiting in the out queue.
+        Table table;   // Null until the player hosts or joins a table.
+        String name;
+        int seat = -1; // Seat in the current round. Negative if the player is not part of it.
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private Lobby(ServerSocketChannel server, Selector selector, GameRegistry registry) {
+        this.server   = server;
+        this.selector = selector;
+        this.registry = registry;
+        this.running  = true;
+
+        this.thread = new Thread(this, "spyfall-lobby");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Opens a lobby and starts serving connections.
+     * @param InetSocketAddress address  Address to listen on. Port zero picks a free port.
+     * @param GameRegistry      registry Registry the games of the tables are created in.
+     * @return The running lobby. Returns null if the address can not be bound.
+     */
+    static Lobby open(InetSocketAddress address, GameRegistry registry) {
+        try {
+            ServerSocketChannel server = ServerSocketChannel.open();
+            server.bind(address, 1024);
+            server.configureBlocking(false);
+
+            Selector selector = Selector.open();
+            server.register(selector, SelectionKey.OP_ACCEPT);
+
+            Lobby lobby = new Lobby(server, selector, registry);
+            lobby.thread.start();
+
+            Log.GAME.info("Lobby listening on port {}.", lobby.getPort());
+
+            return lobby;
+
+        } catch (IOException e) {
+            Log.GAME.warn("Lobby: {}", e.getMessage());
+
+            return null;
+        }
+    }
+
+    /**
+     * Returns the port the lobby listens on.
+     * @return Local port. Returns -1 if the lobby has been closed.
+     */
+    int getPort() {
+        return this.server.socket().getLocalPort();
+    }
+
+    int getConnectionCount() {
+        return this.connections;
+    }
+
+    // Runs a task on the selector thread. Only the first task queued since the last wakeup wakes the selector.
+    @Override
+    public void execute(Runnable task) {
+        this.tasks.add(task);
+
+        if (this.woken.compareAndSet(false, true)) this.selector.wakeup();
+    }
+
+    // Game events are received through the executor and therefore on the selector thread.
+    @Override
+    public void tick(Game game, long timeLeft) {
+        Table t = this.tables.get(game.getID());
+        if (t != null) this.broadcast(t, frame(TICK, 8).putLong(timeLeft));
+    }
+
+    @Override
+    public void stateChanged(Game game, Game.State from, Game.State to) {
+        Table t = this.tables.get(game.getID());
+        if (t != null) this.broadcast(t, frame(STATE, 1).put((byte) to.ordinal()));
+    }
+
+    @Override
+    public void voteCast(Game game, int voter, int suspect) {
+        Table t = this.tables.get(game.getID());
+        if (t != null) this.broadcast(t, frame(VOTED, 2).put((byte) voter).put((byte) suspect));
+    }
+
+    @Override
+    public void run() {
+        while (this.running) {
+            try {
+                this.selector.select();
+
+            } catch (IOException e) {
+                Log.GAME.warn("Lobby: {}", e.getMessage());
+                break;
+            }
+
+            this.woken.set(false); // Cleared before running the tasks so tasks queued meanwhile wake it again.
+
+            Runnable task;
+            while ((task = this.tasks.poll()) != null) task.run();
+
+            for (SelectionKey key : this.selector.selectedKeys()) {
+                if (!key.isValid()) continue;
+
+                if (key.isAcceptable()) {
+                    this.accept();
+                    continue;
+                }
+
+                Connection c = (Connection) key.attachment();
+
+                try {
+                    if (key.isReadable()) this.read(c);
+                    if (key.isValid() && key.isWritable()) this.flush(c);
+
+                } catch (IOException e) {
+                    this.disconnect(c);
+                }
+            }
+
+            this.selector.selectedKeys().clear();
+        }
+
+        for (SelectionKey key : this.selector.keys())
+            if (key.attachment() != null) this.disconnect((Connection) key.attachment());
+
+        try {
+            this.selector.close();
+            this.server.close();
+
+        } catch (IOException e) {
+            Log.GAME.warn("Lobby: {}", e.getMessage());
+        }
+    } /* run */
+
+    // Stops serving, closes every connection and retires the games of the open tables.
+    void close() {
+        this.running = false;
+        this.selector.wakeup();
+
+        try {
+            this.thread.join();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = this.server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true); // Frames are small and should arrive right away.
+
+                Connection c = new Connection(channel);
+                c.key        = channel.register(this.selector, SelectionKey.OP_READ, c);
+
+                this.connections++;
+            }
+
+        } catch (IOException e) {
+            Log.GAME.warn("Lobby: {}", e.getMessage());
+        }
+    }
+
+    // Reads what is available and handles every complete frame.
+    private void read(Connection c) throws IOException {
+        if (c.channel.read(c.in) < 0) throw new IOException("Connection closed");
+
+        ByteBuffer in = c.in;
+        in.flip();
+
+        while (in.remaining() >= 2) {
+            int length = in.getShort(in.position()) & 0xFFFF;
+
+            if (length == 0 || length > MAXFRAME) throw new IOException("Invalid frame length " + length);
+            if (in.remaining() < 2 + length) break;
+
+            int end = in.position() + 2 + length;
+
+            ByteBuffer frame = in.duplicate();
+            frame.position(in.position() + 2).limit(end);
+            in.position(end);
+
+            try {
+                this.handle(c, frame.get(), frame);
+
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated frame");
+            }
+
+            if (!c.channel.isOpen()) return;
+        }
+
+        in.compact();
+    }
+
+    private void handle(Connection c, byte type, ByteBuffer frame) {
+        Table t = c.table;
+
+        if (type == HOST || type == JOIN) {
+            if (t != null) {
+                this.error(c, "Already seated at a table");
+                return;
+            }
+
+            // Read the whole frame first so a truncated one does not leave a table behind.
+            long value  = type == HOST ? frame.getInt() : frame.getLong();
+            String name = getString(frame);
+
+            if (type == HOST) {
+                Game game = this.registry.create();
+
+                if (game == null) {
+                    this.error(c, "No more tables can be opened");
+                    return;
+                }
+
+                t      = new Table(game, value);
+                t.host = c;
+                this.tables.put(game.getID(), t);
+
+                game.addListener(this, this);
+
+            } else {
+                t = this.tables.get(value);
+
+                if (t == null) {
+                    this.error(c, "Unknown table");
+                    return;
+                }
+
+                if (!isBetweenRounds(t.game.getState())) {
+                    this.error(c, "Round is in progress");
+                    return;
+                }
+
+                if (t.members.size() >= t.game.getMaxPlayers()) {
+                    this.error(c, "Table is full");
+                    return;
+                }
+            }
+
+            c.table = t;
+            c.name  = name;
+            t.members.add(c);
+
+            this.send(c, frame(JOINED, 8).putLong(t.game.getID()));
+            this.roster(t);
+
+            return;
+        }
+
+        if (t == null) {
+            this.error(c, "Not seated at a table");
+            return;
+        }
+
+        switch (type) {
+            case START:
+                this.deal(c, t);
+                break;
+
+            case VOTE:
+                int suspect = frame.get();
+
+                if (c.seat < 0) this.error(c, "Not playing in this round");
+                else t.game.vote(c.seat, suspect);
+
+                break;
+
+            case GUESS:
+                String guess = getString(frame);
+                Player spy   = t.game.getSpyPlayer();
+
+                if (spy == null || spy.getID() != c.seat) {
+                    this.error(c, "Only the spy can guess the location");
+                    break;
+                }
+
+                this.send(c, frame(GUESSED, 8).putDouble(t.game.guess(guess)));
+                break;
+
+            case PAUSE:
+            case RESUME:
+                if (c != t.host) {
+                    this.error(c, "Only the host can pause or resume the round");
+                    break;
+                }
+
+                if (type == PAUSE) t.game.pause();
+                else t.game.resume();
+
+                break;
+
+            default:
+                this.error(c, "Unknown frame type " + type);
+        }
+    } /* handle */
+
+    // Deals a new round to the connected players of a table and tells each player only their own role.
+    private void deal(Connection c, Table t) {
+        Game game = t.game;
+
+        if (t.members.size() < MINPLAYERS) {
+            this.error(c, "At least " + MINPLAYERS + " players are needed");
+            return;
+        }
+
+        if (!isBetweenRounds(game.getState())) {
+            this.error(c, "Round is in progress");
+            return;
+        }
+
+        game.reset();
+
+        if (!game.prepare(t.members.size(), t.seconds)) {
+            this.error(c, "Round can not be dealt");
+            return;
+        }
+
+        for (Connection m : t.seats) m.seat = -1;
+        t.seats = t.members.toArray(new Connection[0]);
+
+        Player[] players = game.getPlayers();
+        String location  = game.getLocation().getName();
+
+        for (int i = 0; i < t.seats.length; i++) {
+            Connection m = t.seats[i];
+            m.seat       = i;
+            players[i].setName(m.name);
+
+            String r = players[i].getRole();
+
+            byte[] place = (players[i].isSpy() ? "" : location).getBytes(StandardCharsets.UTF_8);
+            byte[] role  = (r != null ? r : "").getBytes(StandardCharsets.UTF_8);
+
+            ByteBuffer f = frame(ROLE, 1 + 2 + place.length + 2 + role.length).put((byte) i);
+            f.putShort((short) place.length).put(place).putShort((short) role.length).put(role);
+
+            this.send(m, f);
+        }
+
+        game.start();
+    } /* deal */
+
+    private static boolean isBetweenRounds(Game.State state) {
+        return state == Game.State.WAITING || state == Game.State.COMPLETED || state == Game.State.RESOLUTION;
+    }
+
+    // Tells everyone at a table who is seated there.
+    private void roster(Table t) {
+        if (t.members.isEmpty()) return;
+
+        byte[][] names = new byte[t.members.size()][];
+        int size       = 1;
+
+        for (int i = 0; i < names.length; i++) {
+            names[i] = t.members.get(i).name.getBytes(StandardCharsets.UTF_8);
+            size    += 2 + names[i].length;
+        }
+
+        ByteBuffer f = frame(ROSTER, size).put((byte) names.length);
+        for (byte[] n : names) f.putShort((short) n.length).put(n);
+
+        this.broadcast(t, f);
+    }
+
+    private void error(Connection c, String message) {
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+
+        this.send(c, frame(ERROR, 2 + text.length).putShort((short) text.length).put(text));
+    }
+
+    // Allocates a frame with its header written. The payload is put by the caller.
+    private static ByteBuffer frame(byte type, int payload) {
+        return ByteBuffer.allocate(2 + 1 + payload).putShort((short) (1 + payload)).put(type);
+    }
+
+    // Sends one encoded frame to every connected player of a table.
+    private void broadcast(Table t, ByteBuffer frame) {
+        frame.flip();
+
+        for (int i = t.members.size() - 1; i >= 0; i--) this.enqueue(t.members.get(i), frame.duplicate());
+    }
+
+    private void send(Connection c, ByteBuffer frame) {
+        frame.flip();
+        this.enqueue(c, frame);
+    }
+
+    // Writes a frame right away if nothing is queued before it. The rest is written once the socket accepts it.
+    private void enqueue(Connection c, ByteBuffer frame) {
+        if (!c.channel.isOpen()) return;
+
+        try {
+            if (c.out.isEmpty()) c.channel.write(frame);
+
+            if (frame.hasRemaining()) {
+                c.out.add(frame);
+                c.queued += frame.remaining();
+
+                if (c.queued > MAXQUEUED) throw new IOException("Connection is not reading");
+
+                c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+
+        } catch (IOException e) {
+            this.disconnect(c);
+        }
+    }
+
+    private void flush(Connection c) throws IOException {
+        while (!c.out.isEmpty()) {
+            ByteBuffer frame = c.out.peek();
+            int before       = frame.remaining();
+
+            c.channel.write(frame);
+            c.queued -= before - frame.remaining();
+
+            if (frame.hasRemaining()) return;
+
+            c.out.poll();
+        }
+
+        c.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    // Closes a connection and leaves its table. The game of a table is retired once its last player has left.
+    private void disconnect(Connection c) {
+        if (!c.channel.isOpen()) return;
+
+        c.key.cancel();
+
+        try {
+            c.channel.close();
+
+        } catch (IOException e) {
+            Log.GAME.debug("Lobby: {}", e.getMessage());
+        }
+
+        this.connections--;
+
+        Table t = c.table;
+        if (t == null) return;
+
+        t.members.remove(c);
+
+        if (t.members.isEmpty()) {
+            this.tables.remove(t.game.getID());
+
+            t.game.removeListener(this);
+            this.registry.retire(t.game.getID());
+
+        } else {
+            if (t.host == c) t.host = t.members.get(0);
+
+            // Deferred since a failed write in the middle of a broadcast to the table leads here.
+            this.execute(() -> this.roster(t));
+        }
+    } /* disconnect */
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,22 +1,19 @@
 package com.catlinman.spyfall;
 
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
 
 // Static language management class.
 public class Locale {
     // These variables are relevant to reading the data file.
-    private static final String SEPARATOR      = ",";
+    private static final char SEPARATOR        = ',';
     private static final String LOCALEFILENAME = "ui.csv";
 
-    private static String lang;                  // Game language static string.
-    private static HashMap<String, String> data; // String map containing localization data.
+    private static volatile String lang;    // Game language static string.
+    private static volatile String[] table; // Localized strings indexed by message ordinal.
+    private static volatile long loadTime;  // Nanoseconds it took to load the current strings.
 
     // Constant application supported languages array.
     private static final String[] LANGUAGES = {
@@ -52,69 +49,148 @@ public class Locale {
         // Set to the first language key if the supplied key doesn't exist.
         if (langfound == false) l = LANGUAGES[0];
 
-        if (Debug.DATA) System.out.println("Data: Loading locale data file for the language key of " + l + ".");
+        Log.DATA.debug("Loading locale data file for the language key of {}.", l);
 
-        // Reserve variables for our handling of the locale file location.
-        URI localeURI; String localePath;
+        ArrayList<String> errors = new ArrayList<String>();
 
-        // Fetch the resource location from the localized input file. We originally receive a URL which we convert to a URI.
-        try {
-            localeURI = Program.class.getClassLoader().getResource(String.format("%s_%s", l, LOCALEFILENAME)).toURI();
-            localePath = Paths.get(localeURI).toString();
+        long start = System.nanoTime();
 
-        } catch(URISyntaxException e) {
-            System.out.println(e);
+        String[] strings = load(l, errors);
+        if (strings == null) return;
 
-            return;
+        loadTime = System.nanoTime() - start;
+
+        // Missing keys fall back to the key itself for easier debugging but are always reported.
+        for (String e : errors) Log.DATA.warn(e);
+
+        // Publish the new data and set the static language key. Locked so a reload can not publish in between.
+        synchronized (Locale.class) {
+            table = strings;
+            lang  = l;
         }
+    } /* initialize */
+
+    /**
+     * Reads the UI strings of a language again if it is still the current one. The check and the publication happen
+     * in one step, so a reload which finishes after the language has been switched never brings the old one back.
+     * @param String l Language key to reload.
+     * @return False if the language is no longer the current one or its file could not be read.
+     */
+    static boolean reload(String l) {
+        ArrayList<String> errors = new ArrayList<String>();
+
+        long start = System.nanoTime();
+
+        String[] strings = load(l, errors);
+        if (strings == null) return false;
+
+        synchronized (Locale.class) {
+            if (!l.equals(lang)) return false;
+
+            table    = strings;
+            loadTime = System.nanoTime() - start;
+        }
+
+        for (String e : errors) Log.DATA.warn(e);
+
+        return true;
+    }
+
+    /**
+     * Reads the UI strings of a language into a table indexed by message ordinal.
+     * @param String       l      Language key of the file to read.
+     * @param List<String> errors Receives a message for every missing or unknown key.
+     * @return The filled table or null if the file could not be read.
+     */
+    private static String[] load(String l, List<String> errors) {
+        // Open the localized input file as a classpath stream. This works for plain directories and packaged jars alike.
+        InputStream in = Locale.class.getClassLoader().getResourceAsStream(String.format("%s_%s", l, LOCALEFILENAME));
+
+        if (in == null) {
+            Log.DATA.warn("{} UI CSV: The file could not be found on the classpath.", l.toUpperCase());
+
+            return null;
+        }
+
+        // Initialize a new table. It is only published once it has been filled.
+        String[] strings = new String[Message.count()];
+
+        Log.DATA.debug("{} is loading.", l.toUpperCase());
 
-        String content = ""; // Used as temporary storage for the input data.
+        // Stream the records of the file and skip the header. Values may contain the separator so only the first one splits.
+        try (CSVReader reader = new CSVReader(in, SEPARATOR, 2)) {
+            reader.next();
 
-        // Read the file contents with the right system encoding and combine it to a single string.
-        try {
-            byte[] encoded = Files.readAllBytes(Paths.get(localePath));
-            content = new String(encoded, Charset.defaultCharset());
-        } catch (IOException e) {}
+            String[] fields;
+            while ((fields = reader.next()) != null) {
+                if (fields.length < 2) {
+                    Log.DATA.debug("Error in {} UI CSV line {} does not contain the right amount of fields (expected two fields).",
+                                   l.toUpperCase(), reader.getLine());
 
-        // Split each line into a new string.
-        String[] lines = content.split("\n");
+                    continue;
+                }
+
+                Message m = Message.forKey(fields[0].trim());
+
+                if (m == null) {
+                    errors.add(l.toUpperCase() + " UI CSV line " + reader.getLine() + ": Unknown key " + fields[0].trim() + ".");
 
-        // Initialize a new HashMap.
-        data = new HashMap<String, String>();
+                    continue;
+                }
 
-        if (Debug.DATA) System.out.println("Data: " + l.toUpperCase() + " is loading.");
+                strings[m.ordinal()] = fields[1].trim();
 
-        // Iterate over each line. Split each at the separator. Clean up the string and insert it into the location data array.
-        for (int i = 0; i < lines.length - 1; i++) {
-            String[] fields = lines[i + 1].split(SEPARATOR, 2); // Make sure to skip the first header line.
+                Log.DATA.trace("{} = {}", fields[0], fields[1]);
+            }
 
-            try {
-                data.put(fields[0], fields[1].trim());
+        } catch (IOException e) {
+            Log.DATA.warn("{} UI CSV: {}", l.toUpperCase(), e.getMessage());
 
-                if (Debug.DATA) System.out.println(i + ". " + fields[0] + " = " + fields[1].trim());
+            return null;
+        }
 
-            } catch (IndexOutOfBoundsException e) {
-                if (Debug.DATA) System.out.println(
-                    "Data: Error in " + l.toUpperCase() + " UI CSV line " + i
-                    + " does not contain the right amount of fields (expected two fields)."
-                );
+        for (Message m : Message.values()) {
+            if (strings[m.ordinal()] == null) {
+                errors.add(l.toUpperCase() + " UI CSV: Missing key " + m.getKey() + ".");
+
+                strings[m.ordinal()] = m.getKey();
             }
         }
 
-        // Set the static language key.
-        lang = l;
-    } /* loadData */
+        return strings;
+    } /* load */
 
     /**
-     * Gets a data value from the data hashmap using an input key.
+     * Reads the UI strings of a language without publishing them and reports missing or unknown keys.
+     * @param String l Language key to check.
+     * @return Error messages. Empty if the language provides every key.
+     */
+    static List<String> check(String l) {
+        ArrayList<String> errors = new ArrayList<String>();
+
+        if (load(l, errors) == null) errors.add(l.toUpperCase() + " UI CSV: The file could not be read.");
+
+        return errors;
+    }
+
+    /**
+     * Gets a localized string from the loaded table.
+     * @param Message message Key of the string.
+     * @return Localized string.
+     */
+    public static String get(Message message) {
+        return table[message.ordinal()];
+    }
+
+    /**
+     * Gets a localized string using a key built at runtime. Prefer the Message overload for fixed keys.
      * @param String key The CSV key to lookup with.
-     * @return data string.
+     * @return Localized string. Unknown keys return the key itself for easier debugging.
      */
     public static String get(String key) {
-        // Make sure that missing locale default to the key for easier debugging.
-        String out = data.get(key);
+        Message m = Message.forKey(key);
 
-        return out != null ? out : key;
+        return m != null ? table[m.ordinal()] : key;
     }
 
     /**
@@ -125,6 +201,14 @@ public class Locale {
         return lang;
     }
 
+    /**
+     * Returns how long loading the current strings took.
+     * @return Load time in nanoseconds.
+     */
+    static long getLoadTime() {
+        return loadTime;
+    }
+
     /**
      * Fetches the final language key array containing supported language keys.
      * @return Array of supported language keys.
@@ -0,0 +1,50 @@
+package com.catlinman.spyfall;
+
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+/**
+ * Observable localized strings for the user interface. Every message has a single shared property which nodes
+ * bind their text to. Switching the language updates these properties, so the existing scene graph is relabeled
+ * in place instead of being rebuilt. Must only be used on the JavaFX application thread.
+ */
+final class LocaleBinding {
+    // Properties by message ordinal. Created on first use.
+    private static final ReadOnlyStringWrapper[] properties = new ReadOnlyStringWrapper[Message.count()];
+
+    private LocaleBinding() {}
+
+    /**
+     * Returns the observable string of a message.
+     * @param Message message Key of the string.
+     * @return Property holding the string of the current language.
+     */
+    static ReadOnlyStringProperty get(Message message) {
+        ReadOnlyStringWrapper property = properties[message.ordinal()];
+
+        if (property == null) {
+            property = new ReadOnlyStringWrapper(Locale.get(message));
+            properties[message.ordinal()] = property;
+        }
+
+        return property.getReadOnlyProperty();
+    }
+
+    /**
+     * Loads a language and updates every property that is in use.
+     * @param String l Language key to switch to.
+     */
+    static void switchTo(String l) {
+        Locale.initialize(l);
+        refresh();
+    }
+
+    // Updates every property that is in use from the currently loaded strings.
+    static void refresh() {
+        for (Message m : Message.values()) {
+            ReadOnlyStringWrapper property = properties[m.ordinal()];
+
+            if (property != null) property.set(Locale.get(m));
+        }
+    }
+}
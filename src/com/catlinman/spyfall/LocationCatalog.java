@@ -0,0 +1,453 @@
+package com.catlinman.spyfall;
+
+import java.net.URISyntaxException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable table of localized locations and their roles. Each language is read from disk once and the resulting
+ * catalog is cached and shared by every game. Since nothing is modified after loading, catalogs can be used from
+ * any thread without synchronization.
+ *
+ * Locations can have any amount of roles. Roles of all locations are stored back to back in a single array and
+ * an offset table marks where the roles of each location start, so a catalog only holds three arrays no matter
+ * how many locations it contains.
+ *
+ * If a compiled location pack exists next to the data file it is memory-mapped instead and locations are only
+ * decoded once they are used. Additional packs and data files of a language placed in the packs directory are
+ * merged into the bundled locations when the catalog is loaded.
+ */
+final class LocationCatalog {
+    // These variables are relevant to reading the data file.
+    private static final char SEPARATOR      = ',';
+    private static final String DATAFILENAME = "location.csv";
+    private static final String PACKFILENAME = "location." + LocationPack.EXTENSION;
+    static final String PACKDIR              = "packs"; // Directory of additional location data next to the program.
+
+    // Loaded catalogs by their language key.
+    private static final ConcurrentHashMap<String, LocationCatalog> catalogs = new ConcurrentHashMap<String, LocationCatalog>();
+
+    private static final AtomicLong epochs = new AtomicLong(0); // Source of catalog version numbers.
+
+    private final String lang;       // Language key of this catalog.
+    private final long epoch;        // Version of this catalog. Reloaded catalogs have a higher epoch.
+    private final String[] names;    // Location names by location ID.
+    private final String[] roles;    // Roles of all locations back to back. Null for pack backed catalogs.
+    private final int[] offsets;     // Index of the first role by location ID plus the total. Null for packs.
+    private final LocationPack pack; // Mapped location pack. Null for catalogs read from CSV.
+    private long loadTime;           // Nanoseconds it took to load and merge this catalog.
+
+    private volatile HashMap<String, Integer> index; // Location IDs by their name. Built on first use.
+    private volatile GuessMatcher matcher;           // Resolves location guesses. Built on first use.
+
+    private LocationCatalog(String lang, String[] names, String[] roles, int[] offsets) {
+        this.lang    = lang;
+        this.epoch   = epochs.incrementAndGet();
+        this.names   = names;
+        this.roles   = roles;
+        this.offsets = offsets;
+        this.pack    = null;
+    }
+
+    private LocationCatalog(String lang, LocationPack pack) {
+        this.lang    = lang;
+        this.epoch   = epochs.incrementAndGet();
+        this.names   = new String[pack.size()];
+        this.roles   = null;
+        this.offsets = null;
+        this.pack    = pack;
+    }
+
+    /**
+     * Returns the catalog of a language. The data file is only read the first time a language is requested.
+     * @param String lang Language key of the location data file.
+     * @return The shared catalog instance. Returns null if the data could not be loaded.
+     */
+    static LocationCatalog get(String lang) {
+        return catalogs.computeIfAbsent(lang, LocationCatalog::load);
+    }
+
+    /**
+     * Reads the location data of a loaded language again and publishes the result as the new shared catalog.
+     * Parsing happens on the calling thread without holding any lock. Games keep the catalog they were created
+     * with, only games created afterwards use the new version.
+     * @param String lang Language key of the catalog.
+     * @return True if a new version was published. False if the language was not loaded or could not be read.
+     */
+    static boolean reload(String lang) {
+        LocationCatalog current = catalogs.get(lang);
+        if (current == null) return false;
+
+        LocationCatalog fresh = load(lang);
+        if (fresh == null || fresh.size() == 0) return false;
+
+        // Only replace the version the reload started from. A concurrent reload may have published a newer one.
+        if (!catalogs.replace(lang, current, fresh)) return false;
+
+        Log.DATA.info("Published {} location catalog version {}.", lang.toUpperCase(), fresh.epoch);
+
+        return true;
+    }
+
+    int size() {
+        return this.names.length;
+    }
+
+    long getEpoch() {
+        return this.epoch;
+    }
+
+    long getLoadTime() {
+        return this.loadTime;
+    }
+
+    // Returns the shared catalogs of all loaded languages.
+    static Collection<LocationCatalog> getLoaded() {
+        return catalogs.values();
+    }
+
+    // Returns if this catalog is the version new games of its language are created with.
+    boolean isCurrent() {
+        return catalogs.get(this.lang) == this;
+    }
+
+    // Returns if this catalog is backed by a compiled location pack.
+    boolean isPacked() {
+        return this.pack != null;
+    }
+
+    String getLanguage() {
+        return this.lang;
+    }
+
+    String getName(int id) {
+        String name = this.names[id];
+
+        // Pack names are decoded on first use. Strings are immutable so the unsynchronized cache is safe.
+        if (name == null) {
+            name = this.pack.getName(id);
+            this.names[id] = name;
+        }
+
+        return name;
+    }
+
+    /**
+     * Returns the amount of roles a location offers.
+     * @param int id Location ID.
+     * @return Role count.
+     */
+    int getRoleCount(int id) {
+        return this.offsets != null ? this.offsets[id + 1] - this.offsets[id] : this.pack.getRoleCount(id);
+    }
+
+    /**
+     * Returns a single role of a location. Repeated calls return the same string instance.
+     * @param int id    Location ID.
+     * @param int index Role index within the location.
+     * @return Role name.
+     */
+    String getRole(int id, int index) {
+        return this.offsets != null ? this.roles[this.offsets[id] + index] : this.pack.getRole(id, index);
+    }
+
+    /**
+     * Returns a copy of the roles of a location.
+     * @param int id Location ID.
+     * @return New array of role names.
+     */
+    String[] getRoles(int id) {
+        String[] out = new String[this.getRoleCount(id)];
+        for (int i = 0; i < out.length; i++) out[i] = this.getRole(id, i);
+
+        return out;
+    }
+
+    /**
+     * Returns a copy of all location names in ID order.
+     * @return Array of location names.
+     */
+    String[] getNames() {
+        String[] out = new String[this.names.length];
+        for (int i = 0; i < out.length; i++) out[i] = this.getName(i);
+
+        return out;
+    }
+
+    /**
+     * Looks up a location ID by its name.
+     * @param String name Capitalized location name.
+     * @return Location ID. Returns -1 if no location with the name exists.
+     */
+    int indexOf(String name) {
+        HashMap<String, Integer> map = this.index;
+
+        if (map == null) {
+            map = new HashMap<String, Integer>();
+            for (int i = 0; i < this.names.length; i++) map.put(this.getName(i), i);
+
+            this.index = map; // Concurrent callers may build the index twice which is harmless.
+        }
+
+        Integer id = map.get(name);
+
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the matcher used to resolve location guesses against this catalog.
+     * @return The shared matcher.
+     */
+    GuessMatcher getMatcher() {
+        GuessMatcher m = this.matcher;
+
+        if (m == null) {
+            m = new GuessMatcher(this);
+            this.matcher = m; // Concurrent callers may build the matcher twice which is harmless.
+        }
+
+        return m;
+    }
+
+    // Loads the bundled locations of a language and merges additional packs from the packs directory into them.
+    static LocationCatalog load(String lang) {
+        long start = System.nanoTime();
+
+        LocationCatalog bundled = loadBundled(lang);
+
+        ArrayList<LocationCatalog> parts = new ArrayList<LocationCatalog>();
+        if (bundled != null) parts.add(bundled);
+
+        parts.addAll(loadCustom(lang, Paths.get(PACKDIR)));
+
+        if (parts.isEmpty()) return null;
+
+        LocationCatalog catalog = parts.size() == 1 ? parts.get(0) : merge(lang, parts);
+        catalog.loadTime        = System.nanoTime() - start; // Published along with the catalog.
+
+        return catalog;
+    }
+
+    // Loads the bundled input data of a language from the classpath. Compiled packs take precedence over the CSV data
+    // file. Packs in plain directories are memory-mapped while packs inside a jar are read into memory.
+    private static LocationCatalog loadBundled(String lang) {
+        ClassLoader loader = LocationCatalog.class.getClassLoader();
+        URL packURL        = loader.getResource(String.format("%s_%s", lang, PACKFILENAME));
+
+        if (packURL != null) {
+            try {
+                LocationPack pack;
+
+                if ("file".equals(packURL.getProtocol())) {
+                    pack = LocationPack.open(Paths.get(packURL.toURI()));
+
+                } else {
+                    try (InputStream in = packURL.openStream()) {
+                        pack = LocationPack.read(in);
+                    }
+                }
+
+                Log.DATA.debug("Location pack {} has been loaded.", lang.toUpperCase());
+
+                return new LocationCatalog(lang, pack);
+
+            } catch (IOException | URISyntaxException e) {
+                Log.DATA.warn("{} DATA PACK: {}. Falling back to CSV.", lang.toUpperCase(), e.getMessage());
+            }
+        }
+
+        InputStream stream = loader.getResourceAsStream(String.format("%s_%s", lang, DATAFILENAME));
+
+        if (stream == null) {
+            Log.DATA.warn("{} DATA CSV: The file could not be found on the classpath.", lang.toUpperCase());
+
+            return null;
+        }
+
+        try (InputStream in = stream) {
+            return read(lang, in);
+
+        } catch (IOException e) {
+            Log.DATA.warn("{} DATA CSV: {}", lang.toUpperCase(), e.getMessage());
+
+            return null;
+        }
+    } /* loadBundled */
+
+    /**
+     * Loads the additional location files of a language from a directory. Files are named <lang>_<name>.pack or
+     * <lang>_<name>.csv and are loaded in name order. A pack takes precedence over a data file with the same name.
+     * @param String lang      Language key of the files.
+     * @param Path   directory Directory to look in. Missing directories are ignored.
+     * @return Loaded catalogs. Files which could not be read are reported and skipped.
+     */
+    static List<LocationCatalog> loadCustom(String lang, Path directory) {
+        ArrayList<LocationCatalog> out = new ArrayList<LocationCatalog>();
+
+        if (!Files.isDirectory(directory)) return out;
+
+        // Collect the files by name without extension so packs can replace their data files.
+        TreeMap<String, Path> files = new TreeMap<String, Path>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, lang + "_*.{csv," + LocationPack.EXTENSION + "}")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                String stem = name.substring(0, name.lastIndexOf('.'));
+
+                if (name.endsWith(".csv") && files.containsKey(stem)) continue;
+
+                files.put(stem, file);
+            }
+
+        } catch (IOException e) {
+            Log.DATA.warn("{} DATA PACKS: {}", lang.toUpperCase(), e.getMessage());
+
+            return out;
+        }
+
+        for (Path file : files.values()) {
+            try {
+                if (file.toString().endsWith(".csv")) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        out.add(read(lang, in));
+                    }
+
+                } else {
+                    out.add(new LocationCatalog(lang, LocationPack.open(file)));
+                }
+
+                Log.DATA.debug("Location file {} has been loaded.", file.getFileName());
+
+            } catch (IOException e) {
+                Log.DATA.warn("{} DATA {}: {}", lang.toUpperCase(), file.getFileName(), e.getMessage());
+            }
+        }
+
+        return out;
+    } /* loadCustom */
+
+    /**
+     * Merges several catalogs into a single one in the flat layout. Locations whose name already appeared in an
+     * earlier catalog are skipped and equal role names share a single string.
+     * @param String                lang  Language key of the merged catalog.
+     * @param List<LocationCatalog> parts Catalogs to merge in order.
+     * @return New catalog containing the locations of all parts.
+     */
+    static LocationCatalog merge(String lang, List<LocationCatalog> parts) {
+        int locations = 0;
+        int roleCount = 0;
+
+        for (LocationCatalog part : parts) {
+            locations += part.size();
+            for (int i = 0; i < part.size(); i++) roleCount += part.getRoleCount(i);
+        }
+
+        String[] names = new String[locations];
+        String[] roles = new String[roleCount];
+        int[] offsets  = new int[locations + 1];
+
+        HashSet<String> seen            = new HashSet<String>(locations * 2);
+        HashMap<String, String> strings = new HashMap<String, String>(); // Shared instances of role names.
+
+        int n = 0;
+        int r = 0;
+
+        for (LocationCatalog part : parts) {
+            for (int i = 0; i < part.size(); i++) {
+                String name = part.getName(i);
+
+                if (!seen.add(name)) {
+                    Log.DATA.debug("Skipping duplicate location {}.", name);
+
+                    continue;
+                }
+
+                names[n]   = name;
+                offsets[n] = r;
+
+                for (int j = 0, count = part.getRoleCount(i); j < count; j++) {
+                    String role = part.getRole(i, j);
+                    String prev = strings.putIfAbsent(role, role);
+
+                    roles[r++] = prev != null ? prev : role;
+                }
+
+                n++;
+            }
+        }
+
+        offsets[n] = r;
+
+        return new LocationCatalog(lang, Arrays.copyOf(names, n), Arrays.copyOf(roles, r), Arrays.copyOf(offsets, n + 1));
+    } /* merge */
+
+    /**
+     * Reads a catalog from location CSV data.
+     * @param String      lang Language key of the data.
+     * @param InputStream in   UTF-8 encoded CSV data including the header line.
+     * @return New catalog containing all well formed locations.
+     * @throws IOException If the data could not be read or is malformed.
+     */
+    static LocationCatalog read(String lang, InputStream in) throws IOException {
+        // Growable flat tables. Rows are appended without creating an array per location.
+        String[] names = new String[64];
+        String[] roles = new String[512];
+        int[] offsets  = new int[65];
+
+        int n = 0;
+        int r = 0;
+
+        Log.DATA.debug("Location information {} is loading.", lang.toUpperCase());
+
+        // Stream the records of the file and skip the header. Clean up the fields and insert them into the catalog.
+        CSVReader reader = new CSVReader(in, SEPARATOR, 0);
+        reader.next();
+
+        String[] fields;
+        while ((fields = reader.next()) != null) {
+            if (Log.DATA.isTrace()) Log.DATA.trace("{}", String.join(",", fields));
+
+            if (n == names.length) {
+                names   = Arrays.copyOf(names, n * 2);
+                offsets = Arrays.copyOf(offsets, n * 2 + 1);
+            }
+
+            if (r + fields.length > roles.length) roles = Arrays.copyOf(roles, Math.max(roles.length * 2, r + fields.length));
+
+            // Any amount of roles may follow the location name. Empty fields are ignored.
+            int first = r;
+            for (int j = 1; j < fields.length; j++)
+                if (!fields[j].trim().isEmpty()) roles[r++] = Utilities.capitalize(fields[j]);
+
+            // A location needs at least one role or it can not be dealt.
+            if (r == first) {
+                Log.DATA.debug("{} DATA CSV: Line {} does not contain any roles.", lang.toUpperCase(), reader.getLine());
+
+                continue;
+            }
+
+            names[n]   = Utilities.capitalize(fields[0]); // First entry is always the location name.
+            offsets[n] = first;
+
+            n++;
+        }
+
+        offsets[n] = r;
+
+        return new LocationCatalog(lang, Arrays.copyOf(names, n), Arrays.copyOf(roles, r), Arrays.copyOf(offsets, n + 1));
+    } /* read */
+}
@@ -0,0 +1,312 @@
+package com.catlinman.spyfall;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Precompiled binary form of a location data file. Packs are memory-mapped and names and roles are only decoded
+ * when they are requested. Opening a pack checks its hash and every count, offset and string ID against the file
+ * size, so a damaged or hand-edited pack is rejected with an IOException instead of failing on a later read.
+ *
+ * Layout (big endian):
+ * int  magic, int version, int location count, int role count, int string count, int string blob length,
+ * long FNV-1a hash of everything after the header,
+ * int[locations] name string IDs, int[locations + 1] role offsets, int[roles] role string IDs,
+ * int[strings + 1] string byte offsets, byte[] UTF-8 string blob.
+ */
+final class LocationPack {
+    static final String EXTENSION = "pack"; // File extension of compiled packs.
+
+    private static final int MAGIC   = 0x53505950; // "SPYP"
+    private static final int VERSION = 1;
+    private static final int HEADER  = 32;         // Header length in bytes.
+
+    private final ByteBuffer buffer; // Mapped pack contents. Only absolute reads are used so it can be shared.
+
+    private final int count;   // Amount of locations.
+    private final int names;   // Position of the name string IDs.
+    private final int offsets; // Position of the role offsets.
+    private final int roles;   // Position of the role string IDs.
+    private final int strings; // Position of the string offsets.
+    private final int blob;    // Position of the string blob.
+    private final long hash;   // Stored content hash.
+
+    private final String[] cache; // Decoded strings by string ID. Filled on first use.
+
+    private LocationPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a location pack");
+
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported location pack version " + buffer.getInt(4));
+
+        this.count = buffer.getInt(8);
+
+        int roleCount   = buffer.getInt(12);
+        int stringCount = buffer.getInt(16);
+        int blobLength  = buffer.getInt(20);
+
+        if (this.count < 0 || roleCount < 0 || stringCount < 0 || blobLength < 0)
+            throw new IOException("Location pack has negative section sizes");
+
+        // The sections have to add up to the exact file size. Computed in long so large counts can not overflow.
+        long size = HEADER + 4L * this.count + 4L * (this.count + 1L) + 4L * roleCount + 4L * (stringCount + 1L)
+                    + blobLength;
+
+        if (size != buffer.capacity())
+            throw new IOException("Location pack is truncated or corrupt");
+
+        this.hash    = buffer.getLong(24);
+        this.names   = HEADER;
+        this.offsets = this.names + 4 * this.count;
+        this.roles   = this.offsets + 4 * (this.count + 1);
+        this.strings = this.roles + 4 * roleCount;
+        this.blob    = this.strings + 4 * (stringCount + 1);
+
+        if (!this.verify())
+            throw new IOException("Location pack does not match its hash");
+
+        // Lookups use these tables without further checks.
+        checkOffsets(buffer, this.offsets, this.count, roleCount, "role offsets");
+        checkOffsets(buffer, this.strings, stringCount, blobLength, "string offsets");
+        checkIDs(buffer, this.names, this.count, stringCount, "location names");
+        checkIDs(buffer, this.roles, roleCount, stringCount, "roles");
+
+        this.cache = new String[stringCount];
+    }
+
+    // Checks that a table of count + 1 offsets starts at zero, never decreases and ends at the section length.
+    private static void checkOffsets(ByteBuffer buffer, int position, int count, int length, String section)
+        throws IOException {
+        int previous = 0;
+
+        for (int i = 0; i <= count; i++) {
+            int offset = buffer.getInt(position + 4 * i);
+
+            if (offset < previous || offset > length || (i == 0 && offset != 0) || (i == count && offset != length))
+                throw new IOException("Location pack has invalid " + section);
+
+            previous = offset;
+        }
+    }
+
+    // Checks that a table of string IDs only refers to strings of the pack.
+    private static void checkIDs(ByteBuffer buffer, int position, int count, int strings, String section)
+        throws IOException {
+        for (int i = 0; i < count; i++) {
+            int id = buffer.getInt(position + 4 * i);
+
+            if (id < 0 || id >= strings) throw new IOException("Location pack has invalid string IDs for " + section);
+        }
+    }
+
+    /**
+     * Memory-maps a compiled pack file.
+     * @param Path path Location of the pack file.
+     * @return The opened pack.
+     * @throws IOException If the file can not be read or is not a valid pack.
+     */
+    static LocationPack open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel has been closed.
+            return new LocationPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a pack from a stream into memory. Used for packs which are not plain files, such as packs inside a jar.
+     * @param InputStream in Pack contents.
+     * @return The loaded pack.
+     * @throws IOException If the stream can not be read or does not contain a valid pack.
+     */
+    static LocationPack read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk              = new byte[8192];
+
+        int n;
+        while ((n = in.read(chunk)) > 0) out.write(chunk, 0, n);
+
+        return new LocationPack(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    int size() {
+        return this.count;
+    }
+
+    String getName(int id) {
+        return this.string(this.buffer.getInt(this.names + 4 * id));
+    }
+
+    int getRoleCount(int id) {
+        return this.buffer.getInt(this.offsets + 4 * (id + 1)) - this.buffer.getInt(this.offsets + 4 * id);
+    }
+
+    /**
+     * Decodes a single role of a location. Decoded strings are cached so the same instance is returned every time.
+     * @param int id    Location ID.
+     * @param int index Role index within the location.
+     * @return Role name.
+     */
+    String getRole(int id, int index) {
+        return this.string(this.buffer.getInt(this.roles + 4 * (this.buffer.getInt(this.offsets + 4 * id) + index)));
+    }
+
+    /**
+     * Checks the stored hash against the pack contents. Touches every page of the pack. Done on every open.
+     * @return True if the contents match the hash written by the compiler.
+     */
+    boolean verify() {
+        return hash(this.buffer, HEADER, this.buffer.capacity()) == this.hash;
+    }
+
+    // Decodes a string from the blob. Strings are immutable which makes the unsynchronized cache safe to share.
+    private String string(int sid) {
+        String s = this.cache[sid];
+
+        if (s == null) {
+            int start = this.buffer.getInt(this.strings + 4 * sid);
+            int end   = this.buffer.getInt(this.strings + 4 * (sid + 1));
+
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) bytes[i] = this.buffer.get(this.blob + start + i);
+
+            s = new String(bytes, StandardCharsets.UTF_8);
+            this.cache[sid] = s;
+        }
+
+        return s;
+    }
+
+    // 64 bit FNV-1a hash over a section of the buffer.
+    private static long hash(ByteBuffer buffer, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+
+        for (int i = from; i < to; i++) {
+            h ^= buffer.get(i) & 0xff;
+            h *= 0x100000001b3L;
+        }
+
+        return h;
+    }
+
+    /**
+     * Compiles a location catalog into a pack file. Equal strings are only stored once.
+     * @param LocationCatalog catalog Catalog to compile.
+     * @param Path            out     Destination of the pack file.
+     * @throws IOException If the file could not be written.
+     */
+    static void compile(LocationCatalog catalog, Path out) throws IOException {
+        HashMap<String, Integer> ids = new HashMap<String, Integer>(); // String IDs by their value.
+        ArrayList<byte[]> table      = new ArrayList<byte[]>();        // Encoded strings by string ID.
+
+        int count = catalog.size();
+
+        int[] nameIDs = new int[count];
+        int[] offsets = new int[count + 1];
+        ArrayList<Integer> roleIDs = new ArrayList<Integer>();
+
+        for (int i = 0; i < count; i++) {
+            nameIDs[i] = intern(catalog.getName(i), ids, table);
+            offsets[i] = roleIDs.size();
+
+            for (String r : catalog.getRoles(i)) roleIDs.add(intern(r, ids, table));
+        }
+
+        offsets[count] = roleIDs.size();
+
+        // Assemble the body first so it can be hashed for the header.
+        int blobLength = 0;
+        for (byte[] b : table) blobLength += b.length;
+
+        ByteBuffer body = ByteBuffer.allocate(4 * (2 * count + 1 + roleIDs.size() + table.size() + 1) + blobLength);
+
+        for (int id : nameIDs) body.putInt(id);
+        for (int offset : offsets) body.putInt(offset);
+        for (int id : roleIDs) body.putInt(id);
+
+        int position = 0;
+        for (byte[] b : table) {
+            body.putInt(position);
+            position += b.length;
+        }
+
+        body.putInt(position);
+        for (byte[] b : table) body.put(b);
+
+        // Write next to the destination and move it into place. Packs are memory-mapped, and truncating a file
+        // which is still mapped by a running game would make its reads fail.
+        Path temp = out.resolveSibling(out.getFileName() + ".tmp");
+
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeInt(count);
+            stream.writeInt(roleIDs.size());
+            stream.writeInt(table.size());
+            stream.writeInt(blobLength);
+            stream.writeLong(hash(body, 0, body.capacity()));
+            stream.write(body.array());
+        }
+
+        Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } /* compile */
+
+    // Returns the string ID of a value and adds it to the table if it is new.
+    private static int intern(String s, HashMap<String, Integer> ids, ArrayList<byte[]> table) {
+        Integer id = ids.get(s);
+
+        if (id == null) {
+            id = table.size();
+            ids.put(s, id);
+            table.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return id;
+    }
+
+    /**
+     * Command line compiler for location data files.
+     * Usage: LocationPack [input.csv] [output.pack]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: LocationPack <lang>_location.csv <lang>_location.pack");
+            return;
+        }
+
+        // The language key is the file name prefix of the input data file.
+        String file = Paths.get(args[0]).getFileName().toString();
+        String lang = file.contains("_") ? file.substring(0, file.indexOf('_')) : file;
+
+        LocationCatalog catalog;
+        try (InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            catalog = LocationCatalog.read(lang, in);
+        }
+
+        compile(catalog, Paths.get(args[1]));
+
+        // Opening the written pack checks its hash and structure.
+        try {
+            open(Paths.get(args[1]));
+            System.out.println("Compiled " + catalog.size() + " locations into " + args[1] + ".");
+
+        } catch (IOException e) {
+            System.out.println("Compiled " + catalog.size() + " locations into " + args[1] + ". Verification failed! " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.catlinman.spyfall;
+
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+/**
+ * Scrollable location overview with a filter box. Locations are laid out in rows of five inside a virtualized
+ * list, so only the rows that are visible have nodes and those are recycled while scrolling. The amount of nodes
+ * stays the same for catalogs of any size and the only per location state is the index of filter matches.
+ */
+final class LocationView extends VBox {
+    private static final int COLUMNS     = 5;   // Locations per row.
+    private static final int ROWS        = 6;   // Visible rows.
+    private static final double ROWSIZE  = 38;  // Fixed row height. Lets the list skip measuring cells.
+    private static final double CELLSIZE = 135; // Width of a single location box. Longer names are truncated.
+
+    private final TextField filter       = new TextField();
+    private final ListView<Integer> list = new ListView<Integer>();
+
+    private LocationCatalog catalog; // Locations on display.
+    private int[] matches;           // Location IDs passing the filter. Null if every location is shown.
+    private int count;               // Amount of locations shown.
+
+    // Row indices of the list. Rows are computed on demand instead of being stored.
+    private static final class Rows extends ObservableListBase<Integer> {
+        private final int size;
+
+        Rows(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+    }
+
+    // Row of location boxes. Cells are reused for different rows while scrolling.
+    private final class RowCell extends ListCell<Integer> {
+        private final HBox box        = new HBox(10);
+        private final Label[] columns = new Label[COLUMNS];
+
+        RowCell() {
+            for (int i = 0; i < COLUMNS; i++) {
+                Label label = new Label();
+
+                // Create a box around the text to give the interface more structure.
+                label.setStyle("-fx-border-color: gray; -fx-border-radius: 5 5 5 5;");
+                label.setPadding(new Insets(5, 5, 5, 5));
+                label.setAlignment(Pos.CENTER);
+                label.setPrefWidth(CELLSIZE);
+                label.setMaxWidth(CELLSIZE);
+
+                this.columns[i] = label;
+                this.box.getChildren().add(label);
+            }
+
+            this.box.setAlignment(Pos.CENTER_LEFT);
+            this.setPadding(Insets.EMPTY);
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            super.updateItem(row, empty);
+
+            if (empty || row == null) {
+                this.setGraphic(null);
+                return;
+            }
+
+            for (int i = 0; i < COLUMNS; i++) {
+                int index = row * COLUMNS + i;
+
+                if (index < count) {
+                    this.columns[i].setText(catalog.getName(matches != null ? matches[index] : index));
+                    this.columns[i].setVisible(true);
+
+                } else {
+                    this.columns[i].setVisible(false);
+                }
+            }
+
+            this.setGraphic(this.box);
+        }
+    }
+
+    LocationView() {
+        super(10);
+
+        this.setPadding(new Insets(10, 10, 10, 10));
+        this.setAlignment(Pos.TOP_CENTER);
+
+        this.filter.setMaxWidth(COLUMNS * (CELLSIZE + 10));
+        this.filter.textProperty().addListener((ov, old, text) -> this.refresh());
+
+        this.list.setFixedCellSize(ROWSIZE);
+        this.list.setPrefHeight(ROWS * ROWSIZE + 2);
+        this.list.setMaxWidth(COLUMNS * (CELLSIZE + 10) + 20);
+        this.list.setFocusTraversable(false);
+        this.list.setCellFactory(view -> new RowCell());
+
+        this.getChildren().add(this.filter);
+        this.getChildren().add(this.list);
+    }
+
+    /**
+     * Shows the locations of a catalog. The current filter is applied to them.
+     * @param LocationCatalog catalog Locations to show.
+     */
+    void setCatalog(LocationCatalog catalog) {
+        this.catalog = catalog;
+        this.refresh();
+    }
+
+    /**
+     * Returns the filter text field so its prompt can be bound to a localized string.
+     * @return Filter input.
+     */
+    TextField getFilter() {
+        return this.filter;
+    }
+
+    // Recomputes the filter matches and replaces the rows of the list.
+    private void refresh() {
+        int size     = this.catalog != null ? this.catalog.size() : 0;
+        String query = this.filter.getText().trim();
+
+        if (query.isEmpty()) {
+            this.matches = null;
+            this.count   = size;
+
+        } else {
+            int[] found = new int[size];
+            int n       = 0;
+
+            for (int i = 0; i < size; i++)
+                if (contains(this.catalog.getName(i), query)) found[n++] = i;
+
+            this.matches = found;
+            this.count   = n;
+        }
+
+        this.list.setItems(new Rows((this.count + COLUMNS - 1) / COLUMNS));
+        this.list.scrollTo(0);
+    } /* refresh */
+
+    // Case insensitive substring check without allocating lower case copies.
+    private static boolean contains(String name, String query) {
+        int last = name.length() - query.length();
+
+        for (int i = 0; i <= last; i++)
+            if (name.regionMatches(true, i, query, 0, query.length())) return true;
+
+        return false;
+    }
+}
@@ -0,0 +1,357 @@
+package com.catlinman.spyfall;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous logger with a level per subsystem. Levels default to INFO and can be set on start up with the
+ * spyfall.log system property for all subsystems or spyfall.log.[name] for a single one, and changed at runtime
+ * through setLevel() or the Logging MBean.
+ *
+ * Messages are parameterized with {} placeholders and only formatted by a background writer thread, so a disabled
+ * level costs a single comparison and an enabled one copies a few references into a slot of a bounded lock-free
+ * ring buffer. Logging never blocks: If the buffer is full the record is dropped and counted. Arguments are
+ * formatted after the call returns and should therefore be immutable values.
+ *
+ * TRACE and DEBUG have overloads taking long arguments, so IDs and counters are only boxed once the level turned
+ * out to be enabled. Arguments which are expensive to compute should still be guarded with isEnabled().
+ */
+final class Log {
+    /**
+     * Severity of a record. Records below the level of their subsystem are discarded.
+     */
+    enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    static final Log APP  = new Log("app");  // User interface.
+    static final Log GAME = new Log("game"); // Game lifecycle, persistence and sessions.
+    static final Log DATA = new Log("data"); // Locations, strings and configuration files.
+
+    private static final Log[] ALL = { APP, GAME, DATA };
+
+    private static final int CAPACITY = 4096; // Records the ring buffer holds. Must be a power of two.
+    private static final int MASK     = CAPACITY - 1;
+
+    private static final DateTimeFormatter TIME =
+        DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final PrintStream out = System.out; // Output of the writer thread.
+
+    // Ring buffer. A slot is free for the producer claiming position p while its sequence is p and readable by the
+    // writer once the producer has set it to p + 1.
+    private static final Record[] slots          = new Record[CAPACITY];
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong tail           = new AtomicLong(0); // Next position claimed by producers.
+    private static long head;                                           // Next position read. Guarded by Log.class.
+
+    private static final LongAdder dropped = new LongAdder(); // Records lost because the buffer was full.
+    private static long reported;                             // Dropped records already reported by the writer.
+
+    private static final long IDLE  = TimeUnit.MILLISECONDS.toNanos(10); // Writer sleep while the buffer is empty.
+    private static final int NUDGE  = CAPACITY / 4;                       // Records between writer wake ups.
+
+    private static final Thread writer;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Record();
+            sequences.set(i, i);
+        }
+
+        writer = new Thread(Log::write, "spyfall-log");
+        writer.setDaemon(true);
+        writer.start();
+
+        // Records still in the buffer are written before the process exits.
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drain, "spyfall-log-flush"));
+    }
+
+    // Entry of the ring buffer. Written by a single producer before publishing and read by the writer afterwards.
+    private static final class Record {
+        long time;
+        Level level;
+        Log source;
+        String thread;
+        String format;
+        Object a, b, c;
+    }
+
+    private final String name;     // Subsystem name shown in the output.
+    private volatile Level level;   // Lowest level written.
+
+    private Log(String name) {
+        this.name  = name;
+        this.level = parse(System.getProperty("spyfall.log." + name, System.getProperty("spyfall.log")), Level.INFO);
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    Level getLevel() {
+        return this.level;
+    }
+
+    void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the logger of a subsystem.
+     * @param String name Subsystem name.
+     * @return The logger. Returns null if there is no subsystem with the name.
+     */
+    static Log forName(String name) {
+        for (Log l : ALL) if (l.name.equals(name)) return l;
+
+        return null;
+    }
+
+    static Log[] getAll() {
+        return ALL.clone();
+    }
+
+    // Returns the amount of records which were dropped because the buffer was full.
+    static long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Parses a level name.
+     * @param String value    Level name in any case.
+     * @param Level  fallback Level used if the value is null or unknown.
+     * @return The matching level.
+     */
+    static Level parse(String value, Level fallback) {
+        if (value == null) return fallback;
+
+        for (Level l : Level.values()) if (l.name().equalsIgnoreCase(value.trim())) return l;
+
+        return fallback;
+    }
+
+    boolean isEnabled(Level level) {
+        return level.compareTo(this.level) >= 0;
+    }
+
+    boolean isTrace() {
+        return this.isEnabled(Level.TRACE);
+    }
+
+    boolean isDebug() {
+        return this.isEnabled(Level.DEBUG);
+    }
+
+    void trace(String message) {
+        this.log(Level.TRACE, message, null, null, null);
+    }
+
+    void trace(String format, Object a) {
+        this.log(Level.TRACE, format, a, null, null);
+    }
+
+    void trace(String format, Object a, Object b) {
+        this.log(Level.TRACE, format, a, b, null);
+    }
+
+    void trace(String format, Object a, Object b, Object c) {
+        this.log(Level.TRACE, format, a, b, c);
+    }
+
+    void trace(String format, long a) {
+        if (this.isTrace()) this.log(Level.TRACE, format, a, null, null);
+    }
+
+    void trace(String format, long a, long b) {
+        if (this.isTrace()) this.log(Level.TRACE, format, a, b, null);
+    }
+
+    void trace(String format, long a, long b, long c) {
+        if (this.isTrace()) this.log(Level.TRACE, format, a, b, c);
+    }
+
+    void debug(String message) {
+        this.log(Level.DEBUG, message, null, null, null);
+    }
+
+    void debug(String format, Object a) {
+        this.log(Level.DEBUG, format, a, null, null);
+    }
+
+    void debug(String format, Object a, Object b) {
+        this.log(Level.DEBUG, format, a, b, null);
+    }
+
+    void debug(String format, Object a, Object b, Object c) {
+        this.log(Level.DEBUG, format, a, b, c);
+    }
+
+    void debug(String format, long a) {
+        if (this.isDebug()) this.log(Level.DEBUG, format, a, null, null);
+    }
+
+    void debug(String format, long a, long b) {
+        if (this.isDebug()) this.log(Level.DEBUG, format, a, b, null);
+    }
+
+    void debug(String format, long a, long b, long c) {
+        if (this.isDebug()) this.log(Level.DEBUG, format, a, b, c);
+    }
+
+    void info(String message) {
+        this.log(Level.INFO, message, null, null, null);
+    }
+
+    void info(String format, Object a) {
+        this.log(Level.INFO, format, a, null, null);
+    }
+
+    void info(String format, Object a, Object b) {
+        this.log(Level.INFO, format, a, b, null);
+    }
+
+    void info(String format, Object a, Object b, Object c) {
+        this.log(Level.INFO, format, a, b, c);
+    }
+
+    void warn(String message) {
+        this.log(Level.WARN, message, null, null, null);
+    }
+
+    void warn(String format, Object a) {
+        this.log(Level.WARN, format, a, null, null);
+    }
+
+    void warn(String format, Object a, Object b) {
+        this.log(Level.WARN, format, a, b, null);
+    }
+
+    void warn(String format, Object a, Object b, Object c) {
+        this.log(Level.WARN, format, a, b, c);
+    }
+
+    /**
+     * Queues a record for the writer thread. Returns immediately if the level is disabled or the buffer is full.
+     * @param Level  level  Severity of the record.
+     * @param String format Message with up to three {} placeholders.
+     * @param Object a      First argument. Null if unused.
+     * @param Object b      Second argument. Null if unused.
+     * @param Object c      Third argument. Null if unused.
+     */
+    void log(Level level, String format, Object a, Object b, Object c) {
+        if (level.compareTo(this.level) < 0) return;
+
+        // Claim a free slot.
+        long position = tail.get();
+        int index;
+
+        while (true) {
+            index          = (int) position & MASK;
+            long available = sequences.get(index) - position;
+
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+
+                position = tail.get();
+
+            } else if (available < 0) {
+                dropped.increment(); // The writer has not caught up with this slot yet.
+                return;
+
+            } else {
+                position = tail.get(); // Another producer claimed the slot first.
+            }
+        }
+
+        Record r = slots[index];
+        r.time   = System.currentTimeMillis();
+        r.level  = level;
+        r.source = this;
+        r.thread = Thread.currentThread().getName();
+        r.format = format;
+        r.a      = a;
+        r.b      = b;
+        r.c      = c;
+
+        sequences.set(index, position + 1); // Publishes the record to the writer.
+
+        // Waking the writer is a system call, so it is only done every few records to keep up with bursts.
+        if ((position & (NUDGE - 1)) == 0) LockSupport.unpark(writer);
+    } /* log */
+
+    // Body of the writer thread. Drains the buffer and sleeps briefly once it is empty.
+    private static void write() {
+        while (true) {
+            if (drain() == 0) LockSupport.parkNanos(IDLE);
+        }
+    }
+
+    // Formats and writes every published record. Returns the amount of records written.
+    private static synchronized int drain() {
+        StringBuilder sb = new StringBuilder();
+        int count        = 0;
+
+        while (true) {
+            int index = (int) head & MASK;
+            if (sequences.get(index) != head + 1) break;
+
+            Record r = slots[index];
+
+            TIME.formatTo(Instant.ofEpochMilli(r.time), sb);
+            sb.append(' ').append(r.level.name());
+            for (int i = r.level.name().length(); i < 5; i++) sb.append(' ');
+            sb.append(' ').append(r.source.name).append(" [").append(r.thread).append("] ");
+            format(sb, r.format, r.a, r.b, r.c);
+            sb.append(System.lineSeparator());
+
+            r.format = null;
+            r.a      = r.b = r.c = null; // Do not keep arguments alive.
+
+            sequences.set(index, head + CAPACITY); // Frees the slot for the next round of the buffer.
+            head++;
+            count++;
+        }
+
+        long lost = dropped.sum();
+
+        if (lost != reported) {
+            sb.append("Log: ").append(lost - reported).append(" records have been dropped.").append(System.lineSeparator());
+            reported = lost;
+        }
+
+        if (sb.length() > 0) {
+            out.print(sb);
+            out.flush();
+        }
+
+        return count;
+    } /* drain */
+
+    // Replaces the {} placeholders of a message with its arguments in order.
+    private static void format(StringBuilder sb, String format, Object a, Object b, Object c) {
+        int argument = 0;
+        int from     = 0;
+
+        while (true) {
+            int at = format.indexOf("{}", from);
+
+            if (at < 0 || argument == 3) break;
+
+            sb.append(format, from, at);
+            sb.append(argument == 0 ? a : argument == 1 ? b : c);
+
+            argument++;
+            from = at + 2;
+        }
+
+        sb.append(format, from, format.length());
+    }
+}
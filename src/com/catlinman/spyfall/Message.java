@@ -0,0 +1,123 @@
+package com.catlinman.spyfall;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compiled keys of the user interface strings. Every key of the *_ui.csv files has a constant here and its
+ * ordinal is the index of the string in the loaded table of the Locale class, so looking up a string is a
+ * single array access.
+ *
+ * Running this class checks that every supported language provides every key and exits with an error if not.
+ */
+public enum Message {
+    LANGUAGE("language"),
+    LANG("lang"),
+
+    LANGUAGE_EN("language-en"),
+    LANGUAGE_DE("language-de"),
+
+    GENERAL_LANGUAGE("general-language"),
+    GENERAL_PLAYER("general-player"),
+    GENERAL_PLAYER_PLURAL("general-player-plural"),
+    GENERAL_LOCATION("general-location"),
+    GENERAL_LOCATION_PLURAL("general-location-plural"),
+    GENERAL_LOCATION_FILTER("general-location-filter"),
+    GENERAL_SPY("general-spy"),
+
+    APPLICATION_SETTINGS_LABEL("application-settings-label"),
+    APPLICATION_SETTINGS_SAVE("application-settings-save"),
+    APPLICATION_SETTINGS_HELP("application-settings-help"),
+
+    PLAYER_INFORMATION_LABEL("player-information-label"),
+    PLAYER_INFORMATION_NUMLABEL("player-information-numlabel"),
+
+    GAME_INFORMATION_LABEL("game-information-label"),
+    GAME_INFORMATION_ENDWATCH("game-information-endwatch"),
+    GAME_INFORMATION_START("game-information-start"),
+    GAME_INFORMATION_PAUSE("game-information-pause"),
+    GAME_INFORMATION_RESUME("game-information-resume"),
+    GAME_INFORMATION_END("game-information-end"),
+    GAME_INFORMATION_PROGRESS("game-information-progress"),
+    GAME_INFORMATION_TIMELEFT("game-information-timeleft"),
+    GAME_INFORMATION_GAMEOVER("game-information-gameover"),
+
+    WINDOW_HELP_TITLE("window-help-title"),
+    WINDOW_HELP_HEADER("window-help-header"),
+    WINDOW_HELP_CLOSE("window-help-close"),
+    WINDOW_HELP_TEXT1("window-help-text1"),
+    WINDOW_HELP_TEXT2("window-help-text2"),
+    WINDOW_HELP_SOURCE("window-help-source"),
+
+    WINDOW_REVEAL_ROLE("window-reveal-role"),
+    WINDOW_REVEAL_SPY("window-reveal-spy"),
+    WINDOW_REVEAL_HIDDEN("window-reveal-hidden"),
+    WINDOW_REVEAL_SHOW("window-reveal-show"),
+    WINDOW_REVEAL_CLOSE("window-reveal-close"),
+
+    WINDOW_READY_TITLE("window-ready-title"),
+    WINDOW_READY_CLOSE("window-ready-close"),
+
+    WINDOW_RESOLUTION_TITLE("window-resolution-title"),
+    WINDOW_RESOLUTION_HEADER("window-resolution-header"),
+    WINDOW_RESOLUTION_CLOSE("window-resolution-close");
+
+    private static final Message[] VALUES = values(); // Cached constants since values() copies the array.
+
+    // Constants by CSV key. Only used while loading and for keys built at runtime.
+    private static final HashMap<String, Message> KEYS = new HashMap<String, Message>();
+
+    static {
+        for (Message m : VALUES) KEYS.put(m.key, m);
+    }
+
+    private final String key; // Key of the string in the CSV files.
+
+    Message(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * Returns the constant of a CSV key.
+     * @param String key The CSV key to lookup with.
+     * @return Matching constant or null if the key is unknown.
+     */
+    public static Message forKey(String key) {
+        return KEYS.get(key);
+    }
+
+    /**
+     * Returns the amount of compiled keys and with it the size of a string table.
+     * @return Amount of keys.
+     */
+    static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Verifies the UI strings of every supported language.
+     * @return Error messages of all missing or unknown keys. Empty if all languages are complete.
+     */
+    static List<String> verify() {
+        List<String> errors = new ArrayList<String>();
+
+        for (String l : Locale.getSupported()) errors.addAll(Locale.check(l));
+
+        return errors;
+    }
+
+    public static void main(String[] args) {
+        List<String> errors = verify();
+
+        for (String e : errors) System.out.println(e);
+
+        if (!errors.isEmpty()) System.exit(1);
+
+        System.out.println("All " + Locale.getSupported().length + " languages provide all " + count() + " keys.");
+    }
+}
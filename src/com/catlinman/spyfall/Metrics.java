@@ -0,0 +1,244 @@
+package com.catlinman.spyfall;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Engine counters published as MBeans under the com.catlinman.spyfall domain so a running process can be watched
+ * with stock JDK tools such as jconsole. Games only bump striped counters which stay cheap under contention. Every
+ * other reading is a gauge computed from the live objects when a client asks for it, so nothing is sampled or
+ * copied while nobody is connected.
+ */
+final class Metrics {
+    static final String DOMAIN = "com.catlinman.spyfall";
+
+    private static final LongAdder started  = new LongAdder(); // Rounds which entered the INGAME state.
+    private static final LongAdder finished = new LongAdder(); // Rounds which reached the COMPLETED state.
+    private static final LongAdder votes    = new LongAdder(); // Accepted votes of all games.
+    private static final LongAdder duration = new LongAdder(); // Nanoseconds of all finished rounds.
+
+    private static boolean registered; // If the MBeans have been registered with the platform server.
+
+    /**
+     * Readings of the games of this process.
+     */
+    public interface GamesMXBean {
+        // Amount of registered games by the name of their state.
+        Map<String, Integer> getActiveGames();
+
+        long getGamesStarted();
+
+        long getGamesFinished();
+
+        long getVotesCast();
+
+        // Mean wall clock duration of finished rounds in seconds including pauses.
+        double getAverageRoundDuration();
+
+        // Threads of the shared stopwatch scheduler.
+        int getStopwatchThreads();
+    }
+
+    /**
+     * Readings of the loaded location catalogs by language key.
+     */
+    public interface LocationsMXBean {
+        Map<String, Integer> getCatalogSizes();
+
+        Map<String, Double> getCatalogLoadMillis();
+
+        Map<String, Long> getCatalogVersions();
+    }
+
+    /**
+     * Readings of the loaded user interface strings.
+     */
+    public interface LocaleMXBean {
+        String getLanguage();
+
+        int getStringCount();
+
+        double getLoadMillis();
+    }
+
+    /**
+     * Log levels of the subsystems. Levels can be changed while the application is running.
+     */
+    public interface LoggingMXBean {
+        // Level of every subsystem by its name.
+        Map<String, String> getLevels();
+
+        // Records lost because the log buffer was full.
+        long getDroppedRecords();
+
+        void setLevel(String subsystem, String level);
+    }
+
+    private Metrics() {}
+
+    /**
+     * Registers the MBeans with the platform MBean server. Active games are counted over all given registries.
+     * Later calls do nothing.
+     * @param GameRegistry[] registries Registries holding the games of this process.
+     */
+    static synchronized void register(GameRegistry... registries) {
+        if (registered) return;
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            server.registerMBean(new Games(registries), new ObjectName(DOMAIN + ":type=Games"));
+            server.registerMBean(new Locations(), new ObjectName(DOMAIN + ":type=Locations"));
+            server.registerMBean(new Strings(), new ObjectName(DOMAIN + ":type=Locale"));
+            server.registerMBean(new Logging(), new ObjectName(DOMAIN + ":type=Logging"));
+
+            registered = true;
+
+        } catch (JMException e) {
+            Log.APP.warn("Metrics: {}", e.getMessage());
+        }
+    }
+
+    static void roundStarted() {
+        started.increment();
+    }
+
+    /**
+     * Records a finished round.
+     * @param long nanos Wall clock duration of the round in nanoseconds.
+     */
+    static void roundFinished(long nanos) {
+        finished.increment();
+        duration.add(nanos);
+    }
+
+    static void voteCast() {
+        votes.increment();
+    }
+
+    private static final class Games implements GamesMXBean {
+        private final GameRegistry[] registries;
+
+        Games(GameRegistry[] registries) {
+            this.registries = registries.clone();
+        }
+
+        @Override
+        public Map<String, Integer> getActiveGames() {
+            EnumMap<Game.State, Integer> counts = new EnumMap<Game.State, Integer>(Game.State.class);
+            for (Game.State s : Game.State.values()) counts.put(s, 0);
+
+            for (GameRegistry r : this.registries)
+                for (Game g : r.getGames()) counts.merge(g.getState(), 1, Integer::sum);
+
+            TreeMap<String, Integer> out = new TreeMap<String, Integer>();
+            for (Map.Entry<Game.State, Integer> e : counts.entrySet()) out.put(e.getKey().name(), e.getValue());
+
+            return out;
+        }
+
+        @Override
+        public long getGamesStarted() {
+            return started.sum();
+        }
+
+        @Override
+        public long getGamesFinished() {
+            return finished.sum();
+        }
+
+        @Override
+        public long getVotesCast() {
+            return votes.sum();
+        }
+
+        @Override
+        public double getAverageRoundDuration() {
+            long n = finished.sum();
+
+            return n > 0 ? duration.sum() / 1e9 / n : 0;
+        }
+
+        @Override
+        public int getStopwatchThreads() {
+            return Stopwatch.getThreadCount();
+        }
+    }
+
+    private static final class Locations implements LocationsMXBean {
+        @Override
+        public Map<String, Integer> getCatalogSizes() {
+            TreeMap<String, Integer> out = new TreeMap<String, Integer>();
+            for (LocationCatalog c : LocationCatalog.getLoaded()) out.put(c.getLanguage(), c.size());
+
+            return out;
+        }
+
+        @Override
+        public Map<String, Double> getCatalogLoadMillis() {
+            TreeMap<String, Double> out = new TreeMap<String, Double>();
+            for (LocationCatalog c : LocationCatalog.getLoaded()) out.put(c.getLanguage(), c.getLoadTime() / 1e6);
+
+            return out;
+        }
+
+        @Override
+        public Map<String, Long> getCatalogVersions() {
+            TreeMap<String, Long> out = new TreeMap<String, Long>();
+            for (LocationCatalog c : LocationCatalog.getLoaded()) out.put(c.getLanguage(), c.getEpoch());
+
+            return out;
+        }
+    }
+
+    private static final class Strings implements LocaleMXBean {
+        @Override
+        public String getLanguage() {
+            return Locale.getCurrent();
+        }
+
+        @Override
+        public int getStringCount() {
+            return Message.count();
+        }
+
+        @Override
+        public double getLoadMillis() {
+            return Locale.getLoadTime() / 1e6;
+        }
+    }
+
+    private static final class Logging implements LoggingMXBean {
+        @Override
+        public Map<String, String> getLevels() {
+            TreeMap<String, String> out = new TreeMap<String, String>();
+            for (Log l : Log.getAll()) out.put(l.getName(), l.getLevel().name());
+
+            return out;
+        }
+
+        @Override
+        public long getDroppedRecords() {
+            return Log.getDropped();
+        }
+
+        @Override
+        public void setLevel(String subsystem, String level) {
+            Log log = Log.forName(subsystem);
+            if (log == null) throw new IllegalArgumentException("Unknown subsystem " + subsystem);
+
+            Log.Level parsed = Log.parse(level, null);
+            if (parsed == null) throw new IllegalArgumentException("Unknown level " + level);
+
+            log.setLevel(parsed);
+            log.info("Log level changed to {}.", parsed);
+        }
+    }
+}
@@ -1,88 +1,63 @@
 package com.catlinman.spyfall;
 
-// Proxy data class for maintaining player information.
+// View of a single seat of a round. Reads and writes the compact state of the round instead of own fields.
 class Player {
-    private int id;
-    private String name;
-    private Location location;
-    private String role;
-    private Player suspect;
-    private int votes = 0;
+    private final GameState state; // Round this player takes part in.
+    private final int id;          // Seat of this player.
 
-    Player(int id) {
-        this.id = id;
-    }
-
-    Player(int id, String n) {
-        this.id   = id;
-        this.name = n;
+    Player(GameState state, int id) {
+        this.state = state;
+        this.id    = id;
     }
 
     int getID() {
         return this.id;
     }
 
-    void setID(int id) {
-        this.id = id;
-    }
-
-    Location getLocation() {
-        return this.location;
-    }
-
-    void setLocation(Location l) {
-        this.location = l;
-    }
-
     String getName() {
-        return this.name;
+        return this.state.getName(this.id);
     }
 
     void setName(String n) {
-        this.name = n;
+        this.state.setName(this.id, n);
     }
 
+    // Returns the role name of this player. Returns null if the location ran out of roles.
     String getRole() {
-        return this.role;
+        return this.state.getRoleName(this.id);
     }
 
-    void setRole(String r) {
-        this.role = r;
+    // Returns the role index of this player within the location. GameState.SPY or GameState.NOROLE if it has none.
+    int getRoleIndex() {
+        return this.state.getRole(this.id);
     }
 
-    void setSuspect(Player p) {
-        this.suspect = p;
+    boolean isSpy() {
+        return this.state.getSpy() == this.id;
     }
 
-    Player getSuspect() {
-        return this.suspect;
-    }
-
-    void addVote(Player p) {
-        p.setSuspect(this);
-        this.votes += 1;
-    }
-
-    void removeVote(Player p) {
-        p.setSuspect(null);
-        this.votes -= 1;
+    // Returns the ID of the player this player voted for. Returns -1 if no vote has been cast.
+    int getSuspectID() {
+        return this.state.getSuspect(this.id);
     }
 
     int getVotes() {
-        return this.votes;
-    }
-
-    void setVotes(int v) {
-        this.votes = v;
+        return this.state.getVotes(this.id);
     }
 
+    // Votes for another player. A previous vote is moved to the new suspect.
     void doVote(Player p) {
-        if (p != this) {
-            if (this.suspect != null) this.suspect.removeVote(this);
+        this.state.vote(this.id, p.getID());
+    }
 
-            this.suspect = p;
-            this.suspect.addVote(this);
-        }
+    // Views of the same seat of the same round are equal.
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Player && ((Player) o).state == this.state && ((Player) o).id == this.id;
     }
 
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this.state) * 31 + this.id;
+    }
 }
@@ -1,13 +1,17 @@
 package com.catlinman.spyfall;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 
 import javafx.application.Application;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
@@ -24,7 +28,6 @@ import javafx.scene.control.Separator;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
 import javafx.scene.input.KeyEvent;
-import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
@@ -41,7 +44,10 @@ import java.nio.file.NoSuchFileException;
 public class Program extends Application {
     // Configuration file name and separator.
     private static final String CONFIGFILE  = "spyfall.cfg";
-    private static final String CONFIGSPLIT = "=";
+    private static final char CONFIGSPLIT   = '=';
+
+    private static final String JOURNALFILE    = "spyfall.journal"; // Log of every round played.
+    private static final String CHECKPOINTFILE = "spyfall.ckpt";    // Snapshot of the rounds in progress.
 
     // Configuration data.
     private static HashMap<String, String> CONFIG;
@@ -50,7 +56,14 @@ public class Program extends Application {
     private static final int WIDTH  = 800;
     private static final int HEIGHT = 450;
 
-    private static Game spyfall; // The main game object.
+    private static final GameRegistry registry = new GameRegistry(); // Manages the game sessions of this process.
+    private static final GameRegistry tables   = new GameRegistry(GameRegistry.MAXGAMES, Lobby.FIRSTID); // Lobby tables.
+
+    private Game spyfall;            // The game object of the local table.
+    private ResourceWatcher watcher; // Reloads edited resource files. Null if resources can not be watched.
+    private Journal journal;         // Records the rounds of this process. Null if the file can not be written.
+    private Checkpoint checkpoint;   // Snapshots the rounds in progress so they survive a crash.
+    private Lobby lobby;             // Serves tables joined from other devices. Null if no lobby port is set.
 
     private void readConfig() {
         // Initialize the configuration HashMap.
@@ -59,37 +72,26 @@ public class Program extends Application {
         // Set default values.
         CONFIG.put("lang", "en");
 
-        // Initialize the content string.
-        String content = "";
-
-        // Read the configuration file contents.
-        try {
-            byte[] encoded = Files.readAllBytes(Paths.get("./" + CONFIGFILE));
-            content = new String(encoded, Charset.defaultCharset());
-
-        } catch (IOException e) {
-            return;
-        }
-
-        if (Debug.DATA) System.out.println("Data: Loading Spyfall config file.");
+        Log.DATA.debug("Loading Spyfall config file.");
 
-        // Split each line into a new string.
-        String[] lines = content.split("\n");
+        // Stream the key & value records into the HashMap. Values may contain the separator so only the first one splits.
+        try (CSVReader reader = new CSVReader(Files.newInputStream(Paths.get("./" + CONFIGFILE)), CONFIGSPLIT, 2)) {
+            String[] fields;
+            while ((fields = reader.next()) != null) {
+                if (Log.DATA.isTrace()) Log.DATA.trace("{}", String.join(String.valueOf(CONFIGSPLIT), fields));
 
-        // Iterate over lines and start inserting key & values into the HashMap.
-        for (int i = 0; i < lines.length; i++) {
-            String[] fields = lines[i].split(CONFIGSPLIT, 2);
+                if (fields.length < 2) {
+                    Log.DATA.warn("Error in {} line {} does not contain the right amount of fields (expected two fields).",
+                                  CONFIGFILE, reader.getLine());
 
-            try {
-                if (Debug.DATA) System.out.println(lines[i]);
-
-                CONFIG.put(fields[0], fields[1].trim());
+                    continue;
+                }
 
-            } catch(IndexOutOfBoundsException e) {
-                if (Debug.DATA) System.out.println(
-                        "Data: Error in " + CONFIGFILE + " line " + i
-                        + " does not contain the right amount of fields (expected two fields).");
+                CONFIG.put(fields[0].trim(), fields[1].trim());
             }
+
+        } catch (IOException e) {
+            Log.DATA.debug("{} could not be read. {}", CONFIGFILE, e.getMessage());
         }
     }
 
@@ -99,15 +101,15 @@ public class Program extends Application {
 
         // Write to the config file.
         try {
-            Files.write(Paths.get("./" + CONFIGFILE), writeString.getBytes());
+            Files.write(Paths.get("./" + CONFIGFILE), writeString.getBytes(StandardCharsets.UTF_8));
 
         } catch (IOException e) {
-            if(Debug.DATA) e.printStackTrace();
+            Log.DATA.warn("{} could not be written. {}", CONFIGFILE, e.getMessage());
 
             return;
         }
 
-        if (Debug.DATA) System.out.println("Data: Wrote Spyfall config file.");
+        Log.DATA.debug("Wrote Spyfall config file.");
     }
 
     private void createHelpWindow() {
@@ -115,12 +117,12 @@ public class Program extends Application {
         final Stage helpStage = new Stage();
 
         // Set the correct window title.
-        helpStage.setTitle("Spyfall - " + Locale.get("window-help-title"));
+        helpStage.setTitle("Spyfall - " + Locale.get(Message.WINDOW_HELP_TITLE));
 
         // Create the help window stack stack.
         final StackPane helpStack = new StackPane();
 
-        if (Debug.APP) System.out.println("Application: Showing game help window.");
+        Log.APP.debug("Showing game help window.");
 
         // Create a VBox for easier alignment.
         final VBox helpBox = new VBox(10);
@@ -129,22 +131,22 @@ public class Program extends Application {
 
         // Font used in this window.
         final Font headerFont = Font.font(null, 20);
-        final Text helpHeader = new Text(Locale.get("window-help-header"));
+        final Text helpHeader = new Text(Locale.get(Message.WINDOW_HELP_HEADER));
         helpHeader.setFont(headerFont);
 
         // Split the main text into two parts and make sure they wrap and align correctly.
-        final Text helpText1 = new Text(Locale.get("window-help-text1"));
+        final Text helpText1 = new Text(Locale.get(Message.WINDOW_HELP_TEXT1));
         helpText1.setWrappingWidth(430);
         helpText1.setTextAlignment(TextAlignment.JUSTIFY);
 
-        final Text helpText2 = new Text(Locale.get("window-help-text2"));
+        final Text helpText2 = new Text(Locale.get(Message.WINDOW_HELP_TEXT2));
         helpText2.setWrappingWidth(430);
         helpText2.setTextAlignment(TextAlignment.JUSTIFY);
 
         // Create a clickable button for the source code link.
-        final Hyperlink helpSource = new Hyperlink(Locale.get("window-help-source"));
+        final Hyperlink helpSource = new Hyperlink(Locale.get(Message.WINDOW_HELP_SOURCE));
         helpSource.setOnAction(event -> {
-            if (Debug.APP) System.out.println("Application: Closing help window and showing opening source code page.");
+            Log.APP.debug("Closing help window and showing opening source code page.");
 
             helpStage.close();
             getHostServices().showDocument("https://github.com/catlinman/spyfall");
@@ -153,12 +155,12 @@ public class Program extends Application {
         // Set the correct link styling.
         helpSource.setStyle("-fx-border-color: null; -fx-border-style: solid; -fx-border-width: 0px; -fx-underline: true;");
 
-        final Button helpCloseButton = new Button(Locale.get("window-help-close"));
+        final Button helpCloseButton = new Button(Locale.get(Message.WINDOW_HELP_CLOSE));
         helpCloseButton.setMinWidth(430);
 
         // Add a close button to make things simpler for the user.
         helpCloseButton.setOnAction(event -> {
-            if (Debug.APP) System.out.println("Application: Closing help window and returning focus.");
+            Log.APP.debug("Closing help window and returning focus.");
 
             helpStage.close();
         });
@@ -192,22 +194,23 @@ public class Program extends Application {
 
     /**
      * Creates an overlay window which displays player identity information.
-     * @param int    player   Current player index.
-     * @param String name     Custom name of the player. Can be left empty.
-     * @param String location Location designation.
-     * @param String role     Role of the specified player.
+     * @param int     player   Current player index.
+     * @param String  name     Custom name of the player. Can be left empty.
+     * @param String  location Location designation.
+     * @param String  role     Role of the specified player.
+     * @param boolean spy      If the player is the spy. Hides the location and role.
      */
-    private void createRevealWindow(int player, String name, String location, String role) {
+    private void createRevealWindow(int player, String name, String location, String role, boolean spy) {
         // Prepare a new stage.
         final Stage revealStage = new Stage();
 
         // Set the correct window title.
-        revealStage.setTitle("Spyfall - " + Locale.get("general-player") + " " + player);
+        revealStage.setTitle("Spyfall - " + Locale.get(Message.GENERAL_PLAYER) + " " + player);
 
         // Create the main stack.
         final StackPane revealStack = new StackPane();
 
-        if (Debug.APP) System.out.println("Application: Showing identity card for player " + player + ".");
+        Log.APP.debug("Showing identity card for player {}.", player);
 
         // Create the vertical alignment box which all elements will be stored in.
         final VBox revealBox = new VBox(10);
@@ -223,18 +226,18 @@ public class Program extends Application {
         final Font revealFont = Font.font(null, 20);
 
         // Creat the texts used in this window.
-        final Text playerText   = new Text(250, 250, Locale.get("general-player") + " " + player);
+        final Text playerText   = new Text(250, 250, Locale.get(Message.GENERAL_PLAYER) + " " + player);
         final Text locationText = new Text(250, 250, " - " + location + " - ");
-        final Text roleText     = new Text(250, 250, Locale.get("window-reveal-role") + " \"" + role + "\"");
+        final Text roleText     = new Text(250, 250, Locale.get(Message.WINDOW_REVEAL_ROLE) + " \"" + role + "\"");
 
         // If a name was supplied we add it to the header.
         if (!name.equals(""))
             playerText.setText(playerText.getText() + " - " + name);
 
         // If the player is the spy we make sure to hide location & role information.
-        if (role == Locale.get("general-spy")) {
-            locationText.setText(Locale.get("window-reveal-hidden"));
-            roleText.setText(Locale.get("window-reveal-spy"));
+        if (spy) {
+            locationText.setText(Locale.get(Message.WINDOW_REVEAL_HIDDEN));
+            roleText.setText(Locale.get(Message.WINDOW_REVEAL_SPY));
         }
 
         // Set the custom font
@@ -251,8 +254,8 @@ public class Program extends Application {
         hiddenBox.getChildren().add(roleText);
 
         // Create buttons for the window.
-        final Button showButton  = new Button(Locale.get("window-reveal-show"));
-        final Button closeButton = new Button(Locale.get("window-reveal-close"));
+        final Button showButton  = new Button(Locale.get(Message.WINDOW_REVEAL_SHOW));
+        final Button closeButton = new Button(Locale.get(Message.WINDOW_REVEAL_CLOSE));
 
         // Make the buttons fill the width of the window.
         showButton.setMinWidth(430);
@@ -310,19 +313,19 @@ public class Program extends Application {
         final Stage readyStage = new Stage();
 
         // Set the correct window title.
-        readyStage.setTitle("Spyfall - " + Locale.get("window-ready-title"));
+        readyStage.setTitle("Spyfall - " + Locale.get(Message.WINDOW_READY_TITLE));
 
         // Create the ready window stack.
         final StackPane readyStack = new StackPane();
 
-        if (Debug.APP) System.out.println("Application: Showing game ready window.");
+        Log.APP.debug("Showing game ready window.");
 
         // Create a VBox for easier alignment.
         final VBox readyBox = new VBox(10);
         readyBox.setPadding(new Insets(20, 10, 20, 10));
         readyBox.setAlignment(Pos.TOP_CENTER);
 
-        final Button readyButton = new Button(Locale.get("window-ready-close"));
+        final Button readyButton = new Button(Locale.get(Message.WINDOW_READY_CLOSE));
         readyButton.setMinWidth(430);
 
         // Add a close button to make things simpler for the user.
@@ -349,12 +352,12 @@ public class Program extends Application {
         final Stage resolutionStage = new Stage();
 
         // Set the correct window title.
-        resolutionStage.setTitle("Spyfall - " + Locale.get("window-resolution-title"));
+        resolutionStage.setTitle("Spyfall - " + Locale.get(Message.WINDOW_RESOLUTION_TITLE));
 
         // Create the main stack.
         final StackPane resolutionStack = new StackPane();
 
-        if (Debug.APP) System.out.println("Application: Showing game resolution window.");
+        Log.APP.debug("Showing game resolution window.");
 
         // Create the vertical alignment box which all elements will be stored in.
         final VBox resolutionBox = new VBox(10);
@@ -368,15 +371,15 @@ public class Program extends Application {
         Location location = spyfall.getLocation();
 
         // Creat the texts used in this window.
-        final Text headerText = new Text(250, 250, Locale.get("window-resolution-header"));
-        final Text locationText = new Text(250, 250, Locale.get("general-location") + ": " + location.getName());
+        final Text headerText = new Text(250, 250, Locale.get(Message.WINDOW_RESOLUTION_HEADER));
+        final Text locationText = new Text(250, 250, Locale.get(Message.GENERAL_LOCATION) + ": " + location.getName());
 
         // Set the custom font
         headerText.setFont(resolutionFont);
         locationText.setFont(resolutionFont);
 
         // Create the close button for this window.
-        final Button closeButton = new Button(Locale.get("window-resolution-close"));
+        final Button closeButton = new Button(Locale.get(Message.WINDOW_RESOLUTION_CLOSE));
         closeButton.setMinWidth(430); // Make the buttons fill the width of the window.
 
         // Add a close button to make things simpler for the user.
@@ -398,7 +401,7 @@ public class Program extends Application {
 
         for (int i = 0; i < spyfall.getNumPlayers(); i++) {
 
-            final Text playerText = new Text(250, 250, Locale.get("general-player") + " " + (i + 1) + ": " + players[i].getRole());
+            final Text playerText = new Text(250, 250, Locale.get(Message.GENERAL_PLAYER) + " " + (i + 1) + ": " + players[i].getRole());
             resolutionBox.getChildren().add(playerText);
 
             resolutionStage.setHeight(160 + 52 + (26 * i));
@@ -422,13 +425,11 @@ public class Program extends Application {
     }
 
     private void init(Stage stage) {
-        // Create a new game of Spyfall. This also loads data for locations.
-        spyfall = new Game();
-
-        if (Debug.APP) System.out.println("Application: Intializing user interface.");
+        Log.APP.debug("Initializing user interface.");
 
         stage.setTitle("Spyfall"); // Set the window title.
         stage.setResizable(false); // Disable resizing.
+        stage.setHeight(HEIGHT + 330); // Leave room for the location view. Its size does not depend on the catalog.
 
         // Create the main stack and main scene.
         final StackPane mainStack = new StackPane();
@@ -439,7 +440,8 @@ public class Program extends Application {
         veil.setVisible(false);
 
         // Create the game settings section heading.
-        final Text settingsText = new Text(25, 25, Locale.get("application-settings-label"));
+        final Text settingsText = new Text(25, 25, "");
+        settingsText.textProperty().bind(LocaleBinding.get(Message.APPLICATION_SETTINGS_LABEL));
 
         // Box for the application settings and buttons.
         final HBox settingsBox = new HBox(10);
@@ -447,31 +449,19 @@ public class Program extends Application {
         settingsBox.setAlignment(Pos.CENTER);
 
         // Label for the language dropdown.
-        final Text languageText = new Text(25, 25, Locale.get("general-language") + ":");
+        final Text languageText = new Text(25, 25, "");
+        languageText.textProperty().bind(Bindings.concat(LocaleBinding.get(Message.GENERAL_LANGUAGE), ":"));
 
         // Dropdown menu for available languages.
         final ComboBox<String> languageDropdown = new ComboBox<String>();
-        for (String l : Locale.getSupported()) languageDropdown.getItems().addAll(Locale.get("language-" + l));
-        languageDropdown.getSelectionModel().select(Locale.get("language"));
+        fillLanguages(languageDropdown);
 
         // Create the settings buttons.
-        final Button saveButton = new Button(Locale.get("application-settings-save"));
-        final Button helpButton = new Button(Locale.get("application-settings-help"));
+        final Button saveButton = new Button();
+        final Button helpButton = new Button();
 
-        saveButton.setOnAction(event -> {
-            // Load the new locale.
-            Locale.initialize(Locale.getSupported()[languageDropdown.getSelectionModel().getSelectedIndex()]);
-
-            // Write the change to the configuration file.
-            writeConfig();
-
-            if (Debug.APP) System.out.println("Application: Switching language key to "
-                                              + Locale.getCurrent().toUpperCase()
-                                              + " and restarting the application.");
-
-            // Restart the main stage with the new locale changes.
-            restart(stage);
-        });
+        saveButton.textProperty().bind(LocaleBinding.get(Message.APPLICATION_SETTINGS_SAVE));
+        helpButton.textProperty().bind(LocaleBinding.get(Message.APPLICATION_SETTINGS_HELP));
 
         // Set the action event for the help button.
         helpButton.setOnAction(event -> {
@@ -494,7 +484,8 @@ public class Program extends Application {
         verticalBox.setAlignment(Pos.TOP_CENTER);
 
         // Create the section heading and player text field grid.
-        final Text playerText = new Text(25, 25, Locale.get("player-information-label"));
+        final Text playerText = new Text(25, 25, "");
+        playerText.textProperty().bind(LocaleBinding.get(Message.PLAYER_INFORMATION_LABEL));
 
         // Player number counter for the game. Disables and enables players as needed.
         // Box for stopwatch setup and information.
@@ -502,7 +493,8 @@ public class Program extends Application {
         countBox.setAlignment(Pos.CENTER);
 
         // Create the text and input field.
-        final Text countText = new Text(Locale.get("player-information-numlabel"));
+        final Text countText = new Text();
+        countText.textProperty().bind(LocaleBinding.get(Message.PLAYER_INFORMATION_NUMLABEL));
 
         // Dropdown menu for player slots.
         final ComboBox<Integer> countDropdown = new ComboBox<Integer>();
@@ -529,11 +521,8 @@ public class Program extends Application {
         for (int i = 0; i < 8; i++) {
             TextField tf = new TextField();
 
-            // Create the player text string from Locale.
-            String playertext = Locale.get("general-player") + " " + (i + 1);
-
             // Set the correct player id placeholder and width of the textbox.
-            tf.setPromptText(playertext);
+            tf.promptTextProperty().bind(Bindings.concat(LocaleBinding.get(Message.GENERAL_PLAYER), " ", i + 1));
             tf.setPrefWidth(188);
 
             if (i > 3) {
@@ -558,8 +547,6 @@ public class Program extends Application {
                 for (int i = 0; i < 8; i++) {
                     TextField tf = playerFields[i];
 
-                    String playertext = Locale.get("general-player") + " " + (i + 1);
-
                     if (i >= t1) {
                         tf.setText("");
                         tf.setEditable(false);
@@ -574,16 +561,19 @@ public class Program extends Application {
         });
 
         // Create the game settings section heading.
-        final Text informationText = new Text(25, 25, Locale.get("game-information-label"));
+        final Text informationText = new Text(25, 25, "");
+        informationText.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_LABEL));
 
         // Box for stopwatch setup and information.
         final HBox stopwatchBox = new HBox(10);
         stopwatchBox.setAlignment(Pos.CENTER);
 
         // Create the text and input field.
-        final Text stopwatchText       = new Text(Locale.get("game-information-endwatch"));
+        final Text stopwatchText       = new Text();
         final TextField stopwatchInput = new TextField(new IntegerStringConverter().toString(300));
 
+        stopwatchText.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_ENDWATCH));
+
         // Add integer formatting to the textfield.
         final TextFormatter<Integer> stopwatchintformatter = new TextFormatter<>(new IntegerStringConverter());
 
@@ -617,6 +607,9 @@ public class Program extends Application {
         // Font used for the stopwatch.
         final Font stopwatchFont = Font.font(null, 20);
 
+        // Remaining time shown by the stopwatch counter. Updated by the game events.
+        final LongProperty timeLeft = new SimpleLongProperty(0);
+
         final Text stopwatchCounter = new Text("");
         stopwatchCounter.setFont(stopwatchFont);
 
@@ -628,14 +621,39 @@ public class Program extends Application {
         buttonBox.setAlignment(Pos.CENTER);
 
         // Create the main game management buttons.
-        final Button startButton = new Button(Locale.get("game-information-start"));
-        final Button pauseButton = new Button(Locale.get("game-information-pause"));
-        final Button stopButton  = new Button(Locale.get("game-information-end"));
+        final Button startButton = new Button();
+        final Button pauseButton = new Button();
+        final Button stopButton  = new Button();
+
+        startButton.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_START));
+        pauseButton.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_PAUSE));
+        stopButton.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_END));
 
         // Disable buttons that don't have any use in the beginning.
         pauseButton.setDisable(true);
         stopButton.setDisable(true);
 
+        // Text header for the location section.
+        final Text locationText         = new Text(25, 25, "");
+        final LocationView locationView = new LocationView();
+
+        locationText.textProperty().bind(LocaleBinding.get(Message.GENERAL_LOCATION_PLURAL));
+        locationView.getFilter().promptTextProperty().bind(LocaleBinding.get(Message.GENERAL_LOCATION_FILTER));
+
+        // Update the stopwatch display from the game events. Events are delivered on the JavaFX thread.
+        final GameListener display = new GameListener() {
+            @Override
+            public void tick(Game game, long time) {
+                if (time != 0) timeLeft.set(time);
+            }
+
+            @Override
+            public void gameOver(Game game) {
+                stopwatchCounter.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_GAMEOVER));
+                pauseButton.setDisable(true);
+            }
+        };
+
         // Start button logic.
         startButton.setOnAction(event -> {
             // Get the player count value from the dropdown box used for the player fields.
@@ -644,8 +662,8 @@ public class Program extends Application {
             // Get the stopwatch time from the input box if it's enabled.
             int stopwatchTime = stopwatchCheckBox.isSelected() ? Integer.parseInt(stopwatchInput.getText()) : 0;
 
-            // Prepare the game with the correct player count.
-            spyfall.prepare(playerCount, stopwatchTime);
+            // Prepare the game with the correct player count. Abort if the game is not waiting for a new round.
+            if (!spyfall.prepare(playerCount, stopwatchTime)) return;
 
             // Drop focus of the main window.
             veil.setVisible(true);
@@ -657,41 +675,27 @@ public class Program extends Application {
             // Show each player their identity card.
             for (int i = 0; i < playerCount; i++) {
                 players[i].setName(playerFields[i].getText()); // Set the player name.
-                createRevealWindow(i + 1, playerFields[i].getText(), location, players[i].getRole());
+                createRevealWindow(i + 1, playerFields[i].getText(), location, players[i].getRole(), players[i].isSpy());
             }
 
             // Create an extra window after which the game will start.
             createReadyWindow();
 
-            // Prepare the stopwatch callback and correct text.
+            // Prepare the correct stopwatch text.
             if (stopwatchCheckBox.isSelected() == true) {
-                stopwatchCounter.setText(stopwatchInput.getText());
-
-                spyfall.setStopwatchCallback((Long l) -> {
-                    if (l != 0) {
-                        stopwatchCounter.setText(Locale.get("game-information-timeleft") + ": " + l.toString());
-
-                    } else {
-                        stopwatchCounter.setText(Locale.get("game-information-gameover"));
-                        pauseButton.setDisable(true);
-                    }
-
-                    return l;
-                });
+                timeLeft.set(stopwatchTime);
+                stopwatchCounter.textProperty().bind(
+                    Bindings.concat(LocaleBinding.get(Message.GAME_INFORMATION_TIMELEFT), ": ", timeLeft));
 
             } else {
-                stopwatchCounter.setText(Locale.get("game-information-progress"));
+                stopwatchCounter.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_PROGRESS));
             }
 
             // Return focus.
             veil.setVisible(false);
 
-            // Start the game.
-            spyfall.start();
-
-            // Make sure that the gamestate is set to play.
-            if (spyfall.getGamestate() == 2) { // Disable the main boxes used for program and game settings.
-                settingsBox.setDisable(true);
+            // Start the game and make sure that the gamestate is set to play.
+            if (spyfall.start()) { // Disable the main boxes used for game settings. The language can still be changed.
                 playerGrid.setDisable(true);
                 countBox.setDisable(true);
 
@@ -711,22 +715,17 @@ public class Program extends Application {
 
         // Pause button logic.
         pauseButton.setOnAction(event -> {
-            // Make sure that we are ingame for this logic.
-            if (spyfall.getGamestate() == 2) {
-                if (spyfall.getPaused() == true) {
-                    spyfall.pause();
-                    pauseButton.setText(Locale.get("game-information-resume"));
-
-                } else {
-                    spyfall.resume();
-                    pauseButton.setText(Locale.get("game-information-pause"));
-                }
+            // Toggle between the ingame and paused states. Only the valid transition succeeds.
+            if (spyfall.pause()) {
+                pauseButton.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_RESUME));
+
+            } else if (spyfall.resume()) {
+                pauseButton.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_PAUSE));
             }
         });
 
         stopButton.setOnAction(event -> {
             // Enable the main menu elements again.
-            settingsBox.setDisable(false);
             playerGrid.setDisable(false);
             countBox.setDisable(false);
 
@@ -757,7 +756,13 @@ public class Program extends Application {
             stopButton.setDisable(true);
 
             // Reset the pause button in case it was changed.
-            pauseButton.setText(Locale.get("game-information-pause"));
+            pauseButton.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_PAUSE));
+
+            // Switch to the current location data if the language or the data files changed during the round.
+            if (!spyfall.getLanguage().equals(Locale.getCurrent()) || !spyfall.getCatalog().isCurrent()) {
+                renewGame(display);
+                locationView.setCatalog(spyfall.getCatalog());
+            }
         });
 
         // Assign all buttons to the button divider box.
@@ -765,44 +770,97 @@ public class Program extends Application {
         buttonBox.getChildren().add(pauseButton);
         buttonBox.getChildren().add(stopButton);
 
-        // Text header for the location section.
-        final Text locationText     = new Text(25, 25, Locale.get("general-location-plural"));
-        final GridPane locationGrid = new GridPane();
-
-        locationGrid.setPadding(new Insets(10, 10, 10, 10));
-        locationGrid.setVgap(10);
-        locationGrid.setHgap(10);
+        // Switch the language in place. A running round keeps the location data it was dealt with.
+        saveButton.setOnAction(event -> {
+            long start = System.nanoTime();
 
-        // Get the locations from the loaded data.
-        String[] locations = Location.getLocations();
+            // Load the new locale and relabel all bound nodes.
+            LocaleBinding.switchTo(Locale.getSupported()[languageDropdown.getSelectionModel().getSelectedIndex()]);
 
-        // Create the location fields.
-        for (int i = 0; i < locations.length; i++) {
-            // Truncate too long names.
-            String n = locations[i].length() > 18 ? locations[i].substring(0, 18) : locations[i];
+            // The language names themselves are localized as well.
+            fillLanguages(languageDropdown);
 
-            // Create a box around the text to give the interface more structure.
-            HBox box = new HBox();
-            box.getChildren().add(new Text(25, 25, n));
-            box.setStyle("-fx-border-color: gray; -fx-border-radius: 5 5 5 5;");
-            box.setPadding(new Insets(5, 5, 5, 5));
-            box.setAlignment(Pos.CENTER);
+            // Write the change to the configuration file.
+            writeConfig();
 
-            // Constrain for a five column grid.
-            GridPane.setConstraints(box, i % 5, (int) Math.floor(i / 5));
+            // Games waiting for a round can switch to the location data of the new language right away.
+            if (spyfall.getState() == Game.State.WAITING) {
+                renewGame(display);
+                locationView.setCatalog(spyfall.getCatalog());
+            }
 
-            // Add the new text field to the grid and a list for easier management later on..
-            locationGrid.getChildren().add(box);
+            Log.APP.debug("Switched language key to {} in {} microseconds.", Locale.getCurrent().toUpperCase(),
+                          (System.nanoTime() - start) / 1000);
+        });
 
-            stage.setHeight(HEIGHT + 60 + (38 * Math.floor(i / 5)));
+        // Continue the local round if it was still in progress when the program stopped.
+        for (Game g : checkpoint.getRecovered()) {
+            if (spyfall == null && (g.getState() == Game.State.INGAME || g.getState() == Game.State.PAUSED))
+                spyfall = g;
+            else
+                registry.retire(g.getID()); // Only a single table is shown.
         }
 
-        // Create alignment columns for all items.
-        for (int i = 0; i < 5; i++) {
-            ColumnConstraints column = new ColumnConstraints(145);
-            locationGrid.getColumnConstraints().add(column);
+        if (spyfall != null) {
+            spyfall.addListener(display, Platform::runLater);
+
+            Player[] players = spyfall.getPlayers();
+
+            countDropdown.getSelectionModel().select(Integer.valueOf(players.length));
+            for (int i = 0; i < players.length; i++) playerFields[i].setText(players[i].getName());
+
+            if (spyfall.hasStopwatch()) {
+                timeLeft.set(spyfall.getTimeLeft());
+                stopwatchCounter.textProperty().bind(
+                    Bindings.concat(LocaleBinding.get(Message.GAME_INFORMATION_TIMELEFT), ": ", timeLeft));
+
+                pauseButton.setDisable(false);
+                if (spyfall.getPaused()) pauseButton.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_RESUME));
+
+            } else {
+                stopwatchCounter.textProperty().bind(LocaleBinding.get(Message.GAME_INFORMATION_PROGRESS));
+            }
+
+            // Lock the settings the same way starting a round does.
+            playerGrid.setDisable(true);
+            countBox.setDisable(true);
+
+            startButton.setDisable(true);
+            stopButton.setDisable(false);
+
+            stopwatchBox.setVisible(false);
+            stopwatchBox.setManaged(false);
+
+            infoBox.setVisible(true);
+            infoBox.setManaged(true);
+
+        } else {
+            // Create a new game of Spyfall.
+            renewGame(display);
         }
 
+        // Show the locations of the game.
+        locationView.setCatalog(spyfall.getCatalog());
+
+        // Pick up edited resource files. Reloading happens in the background and only the results touch the stage.
+        watcher = ResourceWatcher.start(new ResourceWatcher.Listener() {
+            @Override
+            public void catalogChanged(String lang) {
+                Platform.runLater(() -> {
+                    // A running round keeps its catalog version. The game is renewed once the round is over.
+                    if (lang.equals(spyfall.getLanguage()) && spyfall.getState() == Game.State.WAITING) {
+                        renewGame(display);
+                        locationView.setCatalog(spyfall.getCatalog());
+                    }
+                });
+            }
+
+            @Override
+            public void stringsChanged(String lang) {
+                Platform.runLater(LocaleBinding::refresh);
+            }
+        });
+
         // Separators. Used to split sections for easier overview.
         final Separator separator1 = new Separator();
         final Separator separator2 = new Separator();
@@ -822,7 +880,7 @@ public class Program extends Application {
         verticalBox.getChildren().add(buttonBox);
         verticalBox.getChildren().add(separator3);
         verticalBox.getChildren().add(locationText);
-        verticalBox.getChildren().add(locationGrid);
+        verticalBox.getChildren().add(locationView);
 
         // Assign the vertical box to the main stack to have all elements wrap.
         mainStack.getChildren().add(verticalBox);
@@ -841,13 +899,36 @@ public class Program extends Application {
     } /* init */
 
     public void shutdown() {
-        if (Debug.APP) System.out.println("Application: Closing and resetting Spyfall game states.");
-        spyfall.reset();
+        Log.APP.debug("Closing and resetting Spyfall game states.");
+        if (watcher != null) watcher.stop();
+        checkpoint.close(); // The final snapshot has to be written while the games are still registered.
+        registry.retire(spyfall.getID());
+        if (lobby != null) lobby.close();
+        if (journal != null) journal.close();
     }
 
-    public void restart(Stage stage) {
-        stage.close();
-        init(stage);
+    // Replaces the local game with one using the location data of the current language.
+    private void renewGame(GameListener display) {
+        if (spyfall != null) registry.retire(spyfall.getID());
+
+        // Create a new game of Spyfall. This also loads data for locations.
+        spyfall = registry.create();
+
+        // Restored rounds may have filled the registry. Play without a session rather than without a game.
+        if (spyfall == null) spyfall = new Game(-1);
+
+        spyfall.addListener(display, Platform::runLater);
+    }
+
+    // Lists the supported languages by their localized names and selects the current one.
+    private void fillLanguages(ComboBox<String> languageDropdown) {
+        String[] supported = Locale.getSupported();
+
+        languageDropdown.getItems().clear();
+        for (String l : supported) languageDropdown.getItems().add(Locale.get("language-" + l));
+
+        for (int i = 0; i < supported.length; i++)
+            if (supported[i].equals(Locale.getCurrent())) languageDropdown.getSelectionModel().select(i);
     }
 
     @Override
@@ -858,6 +939,23 @@ public class Program extends Application {
         // Initialize the Locale with the default key.
         Locale.initialize(CONFIG.get("lang"));
 
+        // Publish the engine counters for JMX clients. Lobby tables are counted together with the local games.
+        Metrics.register(registry, tables);
+
+        // Record every round so it can be replayed later on.
+        journal = Journal.open(Paths.get("./" + JOURNALFILE));
+        // Both registries share the journal. Their game IDs never overlap, so replaying keeps their games apart.
+        registry.setJournal(journal);
+        tables.setJournal(journal);
+
+        // Restore the rounds which were in progress when the program stopped and keep checkpointing them.
+        checkpoint = Checkpoint.open(Paths.get("./" + CHECKPOINTFILE), registry);
+
+        // Let players receive their roles on their own devices if a lobby port has been given. Remote tables get
+        // their own registry so they can never take the session of the local game.
+        Integer port = Integer.getInteger("spyfall.lobby.port");
+        if (port != null) lobby = Lobby.open(new InetSocketAddress(port), tables);
+
         // Start the main application.
         init(stage);
     }
@@ -0,0 +1,201 @@
+package com.catlinman.spyfall;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the resource directory and the packs directory for edited location and UI string files. Changes are
+ * re-parsed on a background daemon thread and published atomically: A reloaded catalog replaces the shared one
+ * in a single step, so games that are already running keep the version they were created with while new games
+ * pick up the new one. Files that fail to parse leave the previous version in place. If the packs directory does
+ * not exist yet, the directory it will be created in is watched until it appears.
+ */
+final class ResourceWatcher implements Runnable {
+    private static final long SETTLE = 250; // Milliseconds to wait for further events before reloading.
+
+    /**
+     * Receives reload notifications. Called on the watcher thread.
+     */
+    interface Listener {
+        /**
+         * Called after a new location catalog version has been published.
+         * @param String lang Language key of the catalog.
+         */
+        default void catalogChanged(String lang) {}
+
+        /**
+         * Called after the UI strings of the current language have been reloaded.
+         * @param String lang Language key of the strings.
+         */
+        default void stringsChanged(String lang) {}
+    }
+
+    private final WatchService service;
+    private final Listener listener;
+    private final Thread thread;
+
+    private final Path resources; // Directory of the bundled resource files.
+    private final Path packs;     // Directory of additional location files. Might not exist yet.
+    private WatchKey parent;      // Watches for the packs directory to be created. Null once it is watched.
+
+    private ResourceWatcher(WatchService service, Listener listener, Path resources, Path packs) {
+        this.service   = service;
+        this.listener  = listener;
+        this.resources = resources;
+        this.packs     = packs;
+
+        this.thread = new Thread(this, "spyfall-watcher");
+        this.thread.setDaemon(true); // Never keep the application alive because of the watcher.
+    }
+
+    /**
+     * Starts watching the resource directories.
+     * @param Listener listener Receives reload notifications.
+     * @return The running watcher. Returns null if resources are not plain files and can not be watched.
+     */
+    static ResourceWatcher start(Listener listener) {
+        URL url = ResourceWatcher.class.getClassLoader().getResource(Locale.getSupported()[0] + "_ui.csv");
+
+        try {
+            if (url == null || !"file".equals(url.getProtocol())) return null;
+
+            WatchService service = FileSystems.getDefault().newWatchService();
+
+            Path resources = Paths.get(url.toURI()).getParent().toAbsolutePath().normalize();
+            Path packs     = Paths.get(LocationCatalog.PACKDIR).toAbsolutePath().normalize();
+
+            ResourceWatcher watcher = new ResourceWatcher(service, listener, resources, packs);
+
+            register(service, resources);
+            if (register(service, packs) == null) watcher.parent = register(service, packs.getParent());
+
+            watcher.thread.start();
+
+            Log.DATA.debug("Watching resources for changes.");
+
+            return watcher;
+
+        } catch (IOException | URISyntaxException e) {
+            Log.DATA.warn("Resource watcher: {}", e.getMessage());
+
+            return null;
+        }
+    }
+
+    // Stops watching. The watcher thread ends once it notices the closed service.
+    void stop() {
+        try {
+            this.service.close();
+
+        } catch (IOException e) {
+            Log.DATA.warn("Resource watcher: {}", e);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                HashSet<String> catalogs = new HashSet<String>(); // Languages with changed location data.
+                HashSet<String> strings  = new HashSet<String>(); // Languages with changed UI strings.
+
+                WatchKey key = this.service.take();
+
+                // Editors often write a file in several steps. Collect events until they settle down.
+                while (key != null) {
+                    Path directory = (Path) key.watchable();
+
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            for (String l : Locale.getSupported()) {
+                                catalogs.add(l);
+                                strings.add(l);
+                            }
+
+                            continue;
+                        }
+
+                        Path file = directory.resolve((Path) event.context());
+
+                        // The packs directory has been created. Watch it and load whatever was put into it.
+                        if (this.parent != null && file.equals(this.packs) && this.watchPacks(directory))
+                            for (String l : Locale.getSupported()) catalogs.add(l);
+
+                        // Only the packs directory matters in the directory it is created in.
+                        if (directory.equals(this.resources) || directory.equals(this.packs))
+                            classify(file.getFileName().toString(), catalogs, strings);
+                    }
+
+                    key.reset();
+                    key = this.service.poll(SETTLE, TimeUnit.MILLISECONDS);
+                }
+
+                for (String l : catalogs) {
+                    if (LocationCatalog.reload(l)) this.listener.catalogChanged(l);
+                }
+
+                // Only the current language is held in memory so other languages pick up changes when loaded. Skipped if
+                // the language is switched while reloading.
+                String current = Locale.getCurrent();
+
+                if (current != null && strings.contains(current) && Locale.reload(current))
+                    this.listener.stringsChanged(current);
+            }
+
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            Log.DATA.debug("Resource watcher stopped.");
+        }
+    } /* run */
+
+    // Starts watching the packs directory after it has been created. Returns false if it can not be watched.
+    private boolean watchPacks(Path directory) {
+        try {
+            if (register(this.service, this.packs) == null) return false;
+
+        } catch (IOException e) {
+            Log.DATA.warn("Resource watcher: {}", e.getMessage());
+            return false;
+        }
+
+        // The parent is still needed if it holds the resource files as well.
+        if (!directory.equals(this.resources)) this.parent.cancel();
+        this.parent = null;
+
+        return true;
+    }
+
+    // Sorts a changed file name into the location data or UI strings of its language.
+    private static void classify(String name, HashSet<String> catalogs, HashSet<String> strings) {
+        int split = name.indexOf('_');
+        if (split <= 0) return;
+
+        String lang = name.substring(0, split);
+
+        if (name.endsWith("_ui.csv")) {
+            strings.add(lang);
+
+        } else if (name.endsWith(".csv") || name.endsWith("." + LocationPack.EXTENSION)) {
+            catalogs.add(lang);
+        }
+    }
+
+    // Returns the key of the watched directory. Returns null if the directory does not exist.
+    private static WatchKey register(WatchService service, Path directory) throws IOException {
+        if (directory == null || !Files.isDirectory(directory)) return null;
+
+        return directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                                  StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+}
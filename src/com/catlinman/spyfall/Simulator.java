@@ -0,0 +1,257 @@
+package com.catlinman.spyfall;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Headless Monte Carlo simulation of the deal. Runs a large amount of Game.prepare() cycles in parallel on a
+ * fork/join pool and reports how often each seat became the spy, each location was drawn and each role was dealt.
+ * Every distribution is tested against a uniform one with a chi-square test. Roles are tested per seat and location
+ * since a full table is dealt every role of a location each round. The statistics are summed up into a single test.
+ *
+ * Usage: Simulator [rounds] [players] [language]
+ */
+public final class Simulator {
+    private static final int CHUNK = 50000; // Rounds simulated by a single task without splitting.
+
+    private Simulator() {}
+
+    // Counts collected by the simulation tasks.
+    private static final class Tally {
+        final long[] seats;     // Spy count by seat.
+        final long[] locations; // Draw count by location ID.
+        final long[][][] roles; // Deal count by seat, location ID and role index within the location.
+        long rounds;
+
+        Tally(int players, LocationCatalog catalog) {
+            this.seats     = new long[players];
+            this.locations = new long[catalog.size()];
+            this.roles     = new long[players][catalog.size()][];
+
+            for (int s = 0; s < players; s++)
+                for (int i = 0; i < this.locations.length; i++)
+                    this.roles[s][i] = new long[Math.min(catalog.getRoleCount(i), GameState.MAXROLES)];
+        }
+
+        Tally merge(Tally other) {
+            for (int i = 0; i < this.seats.length; i++) this.seats[i] += other.seats[i];
+            for (int i = 0; i < this.locations.length; i++) this.locations[i] += other.locations[i];
+
+            for (int s = 0; s < this.roles.length; s++)
+                for (int i = 0; i < this.roles[s].length; i++)
+                    for (int j = 0; j < this.roles[s][i].length; j++) this.roles[s][i][j] += other.roles[s][i][j];
+
+            this.rounds += other.rounds;
+
+            return this;
+        }
+    }
+
+    // Simulates a range of rounds, splitting it up while it is larger than a single chunk.
+    private static final class Task extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+
+        private final LocationCatalog catalog;
+        private final int players;
+        private final long rounds;
+
+        Task(LocationCatalog catalog, int players, long rounds) {
+            this.catalog = catalog;
+            this.players = players;
+            this.rounds  = rounds;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (this.rounds > CHUNK) {
+                Task left  = new Task(this.catalog, this.players, this.rounds / 2);
+                Task right = new Task(this.catalog, this.players, this.rounds - this.rounds / 2);
+
+                left.fork();
+
+                return right.compute().merge(left.join());
+            }
+
+            Tally tally = new Tally(this.players, this.catalog);
+            Game game   = new Game(0, this.catalog); // Every task deals with its own game.
+
+            for (long r = 0; r < this.rounds; r++) {
+                game.prepare(this.players, 0);
+
+                int location = game.getLocation().getID();
+
+                tally.locations[location]++;
+                tally.seats[game.getSpyPlayer().getID()]++;
+
+                for (Player p : game.getPlayers()) {
+                    int role = p.getRoleIndex();
+                    if (role >= 0) tally.roles[p.getID()][location][role]++;
+                }
+
+                game.reset();
+            }
+
+            tally.rounds = this.rounds;
+
+            return tally;
+        }
+    }
+
+    public static void main(String[] args) {
+        long rounds = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        String lang = args.length > 2 ? args[2] : "en";
+
+        Locale.initialize(lang);
+
+        LocationCatalog catalog = LocationCatalog.get(lang);
+        if (catalog == null || catalog.size() == 0) {
+            System.out.println("No location data available for the language key of " + lang.toUpperCase() + ".");
+            return;
+        }
+
+        // Game.prepare silently clamps the player count so reject anything it would not deal as asked.
+        int max = new Game(0, catalog).getMaxPlayers();
+        if (players < 1 || players > max) {
+            System.out.println("The player count must be between 1 and " + max + ".");
+            return;
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        long start  = System.nanoTime();
+        Tally tally = pool.invoke(new Task(catalog, players, rounds));
+        double time = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format(java.util.Locale.ROOT,
+                "Simulated %d rounds with %d players on %d threads in %.2f seconds.",
+                tally.rounds, players, pool.getParallelism(), time));
+        System.out.println(String.format(java.util.Locale.ROOT,
+                "Throughput: %.0f deals per second, %.0f deals per second per core.",
+                tally.rounds / time, tally.rounds / time / pool.getParallelism()));
+
+        report("Spy seat", tally.seats);
+        report("Location", tally.locations);
+        roles(tally.roles);
+    } /* main */
+
+    // Prints the chi-square statistic of the roles dealt to every seat summed over all locations and their total.
+    private static void roles(long[][][] counts) {
+        StringBuilder sb = new StringBuilder();
+
+        double sum = 0;
+        int df     = 0;
+
+        for (int s = 0; s < counts.length; s++) {
+            double seat = 0;
+            int seatdf  = 0;
+
+            for (long[] location : counts[s]) {
+                long total = 0;
+                for (long c : location) total += c;
+
+                if (total == 0 || location.length < 2) continue;
+
+                seat   += chi(location, total);
+                seatdf += location.length - 1;
+            }
+
+            sum += seat;
+            df  += seatdf;
+
+            sb.append(String.format(java.util.Locale.ROOT, "  %3d: chi-square %10.2f, %5d degrees of freedom, p = %.4f%n",
+                                    s, seat, seatdf, pvalue(seat, seatdf)));
+        }
+
+        System.out.println();
+        System.out.println(String.format(java.util.Locale.ROOT, "Role distribution by seat (chi-square %.2f, %d degrees of freedom, p = %.4f)",
+                                         sum, df, pvalue(sum, df)));
+        System.out.print(sb);
+    }
+
+    // Chi-square statistic of counts against a uniform distribution.
+    private static double chi(long[] counts, long total) {
+        double expected = (double) total / counts.length;
+
+        double chi = 0;
+        for (long c : counts) chi += (c - expected) * (c - expected) / expected;
+
+        return chi;
+    }
+
+    // Prints a distribution and its chi-square statistic against a uniform distribution.
+    private static void report(String name, long[] counts) {
+        long total = 0;
+        for (long c : counts) total += c;
+
+        double chi = chi(counts, total);
+        int df     = counts.length - 1;
+
+        System.out.println();
+        System.out.println(String.format(java.util.Locale.ROOT, "%s distribution (chi-square %.2f, %d degrees of freedom, p = %.4f)",
+                                         name, chi, df, pvalue(chi, df)));
+
+        for (int i = 0; i < counts.length; i++)
+            System.out.println(String.format(java.util.Locale.ROOT, "  %3d: %10d  %6.3f%%", i, counts[i], 100.0 * counts[i] / total));
+    }
+
+    // Upper tail probability of the chi-square distribution.
+    static double pvalue(double chi, int df) {
+        return df > 0 ? gammaQ(df / 2.0, chi / 2.0) : 1;
+    }
+
+    // Regularized upper incomplete gamma function using a series or a continued fraction depending on the range.
+    private static double gammaQ(double a, double x) {
+        if (x <= 0) return 1;
+
+        double lg = logGamma(a);
+
+        if (x < a + 1) {
+            double sum = 1 / a, term = sum;
+
+            for (int n = 1; n < 1000 && Math.abs(term) > Math.abs(sum) * 1e-15; n++) {
+                term *= x / (a + n);
+                sum  += term;
+            }
+
+            return 1 - sum * Math.exp(-x + a * Math.log(x) - lg);
+        }
+
+        // Lentz's method for the continued fraction.
+        double b = x + 1 - a, c = 1 / 1e-300, d = 1 / b, h = d;
+
+        for (int n = 1; n < 1000; n++) {
+            double an = -n * (n - a);
+
+            b += 2;
+            d  = an * d + b;
+            c  = b + an / c;
+
+            if (Math.abs(d) < 1e-300) d = 1e-300;
+            if (Math.abs(c) < 1e-300) c = 1e-300;
+
+            d = 1 / d;
+
+            double delta = d * c;
+            h *= delta;
+
+            if (Math.abs(delta - 1) < 1e-15) break;
+        }
+
+        return Math.exp(-x + a * Math.log(x) - lg) * h;
+    } /* gammaQ */
+
+    // Lanczos approximation of the log gamma function.
+    private static double logGamma(double x) {
+        double[] c = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                      -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+
+        double y = x, tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+
+        double ser = 1.000000000190015;
+        for (double v : c) ser += v / ++y;
+
+        return -tmp + Math.log(2.5066282746310005 * ser / x);
+    }
+}
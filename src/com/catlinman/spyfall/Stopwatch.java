@@ -0,0 +1,175 @@
+package com.catlinman.spyfall;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Countdown of a single game. All stopwatches are driven by one small shared pool of daemon threads.
+ *
+ * The remaining time is always computed from a System.nanoTime() deadline instead of being counted down tick by
+ * tick, so late or slow ticks never add up to drift. Ticks are scheduled one at a time for the moment the remaining
+ * time reaches the next multiple of the tick resolution. Pausing stores the remaining time and cancels the pending
+ * tick, so a paused stopwatch does not wake up at all until it is resumed with a new deadline.
+ */
+final class Stopwatch {
+    // Amount of scheduler threads. A single thread easily handles thousands of one second ticks.
+    private static final int THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private static final AtomicInteger threadCount = new AtomicInteger(0); // Used for naming scheduler threads.
+
+    // Shared scheduler for every game in this process.
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(THREADS, r -> {
+        Thread t = new Thread(r, "spyfall-stopwatch-" + threadCount.incrementAndGet());
+        t.setDaemon(true); // Never keep the application alive because of a running stopwatch.
+
+        return t;
+    });
+
+    static {
+        scheduler.setRemoveOnCancelPolicy(true); // Paused and cancelled stopwatches leave nothing in the queue.
+    }
+
+    /**
+     * Receives the ticks of a stopwatch. Called on the shared scheduler threads.
+     */
+    interface Tick {
+        /**
+         * Called on every tick and once more when the time has run out.
+         * @param long remaining Remaining time in nanoseconds. Zero once the time has run out.
+         */
+        void run(long remaining);
+    }
+
+    private final Tick tick;
+    private final long resolution; // Nanoseconds between ticks.
+
+    // Guarded by this stopwatch.
+    private long deadline;            // System.nanoTime() at which the time runs out. Valid while running.
+    private long remaining;           // Remaining nanoseconds. Valid while paused.
+    private boolean paused;
+    private boolean cancelled;
+    private boolean started;          // If the stopwatch has run before. The first run ticks right away.
+    private int generation;           // Incremented for every scheduled tick so outdated ticks can be ignored.
+    private ScheduledFuture<?> future; // Pending tick.
+
+    private Stopwatch(Tick tick, long duration, long resolution) {
+        this.tick       = tick;
+        this.resolution = resolution;
+        this.remaining  = duration;
+        this.paused     = true;
+    }
+
+    /**
+     * Creates a paused stopwatch on the shared scheduler. Nothing is scheduled until it is resumed for the first
+     * time, which delivers the first tick right away.
+     * @param Tick tick       Called with the remaining time on every tick while the stopwatch is running.
+     * @param long duration   Time until the stopwatch runs out in nanoseconds.
+     * @param long resolution Time between ticks in nanoseconds.
+     * @return Handle used to resume, pause and cancel the stopwatch.
+     */
+    static Stopwatch create(Tick tick, long duration, long resolution) {
+        return new Stopwatch(tick, duration, Math.max(1, resolution));
+    }
+
+    // Stops the countdown and drops the pending tick.
+    synchronized void pause() {
+        if (this.paused || this.cancelled) return;
+
+        this.remaining = Math.max(0, this.deadline - System.nanoTime());
+        this.paused    = true;
+
+        this.drop();
+    }
+
+    // Continues the countdown with the time that was left when pausing.
+    synchronized void resume() {
+        if (!this.paused || this.cancelled) return;
+
+        this.deadline = System.nanoTime() + this.remaining;
+        this.paused   = false;
+
+        this.schedule(this.started ? this.delay(this.remaining) : 0);
+        this.started = true;
+    }
+
+    // Stops the stopwatch for good.
+    synchronized void cancel() {
+        this.cancelled = true;
+        this.drop();
+    }
+
+    synchronized boolean isActive() {
+        return !this.paused && !this.cancelled;
+    }
+
+    /**
+     * Returns the remaining time.
+     * @return Remaining nanoseconds. Never negative.
+     */
+    synchronized long getRemaining() {
+        return this.paused ? this.remaining : Math.max(0, this.deadline - System.nanoTime());
+    }
+
+    /**
+     * Converts a remaining time to whole seconds for display. Partial seconds are rounded up so the full time is
+     * shown at the start and zero only once the time has run out.
+     * @param long nanos Remaining time in nanoseconds.
+     * @return Remaining seconds.
+     */
+    static long toSeconds(long nanos) {
+        return (nanos + 999999999L) / 1000000000L;
+    }
+
+    // Delay until the remaining time reaches the next multiple of the resolution or runs out.
+    private long delay(long left) {
+        if (left <= 0) return 0;
+
+        return left - (left - 1) / this.resolution * this.resolution;
+    }
+
+    private void schedule(long delay) {
+        int g = ++this.generation;
+
+        this.future = scheduler.schedule(() -> this.fire(g), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void drop() {
+        this.generation++;
+
+        if (this.future != null) {
+            this.future.cancel(false);
+            this.future = null;
+        }
+    }
+
+    private void fire(int g) {
+        long left;
+
+        synchronized (this) {
+            // A tick which was already running while the stopwatch was paused or rescheduled.
+            if (g != this.generation || this.paused || this.cancelled) return;
+
+            left = Math.max(0, this.deadline - System.nanoTime());
+
+            if (left > 0) this.schedule(this.delay(left));
+            else this.future = null;
+        }
+
+        this.tick.run(left); // Outside of the lock so the tick can pause or cancel the stopwatch.
+    }
+
+    /**
+     * Returns the amount of threads the shared scheduler has started.
+     * @return Scheduler thread count. Does not grow with the amount of games.
+     */
+    static int getThreadCount() {
+        return scheduler.getPoolSize();
+    }
+
+    // Returns the amount of threads the shared scheduler is bound to.
+    static int getThreadLimit() {
+        return THREADS;
+    }
+}
@@ -13,18 +13,39 @@ public final class Utilities {
      * @return A new string converted from the input String.
      */
     public static String capitalize(String in) {
-        String[] arr    = in.trim().split(" ");
-        StringBuffer sb = new StringBuffer();
+        // Bounds of the trimmed input. Avoids creating a trimmed copy.
+        int first = 0;
+        int last  = in.length();
 
-        for (int i = 0; i < arr.length; i++)
-            sb.append(Character.toUpperCase(arr[i].charAt(0))).append(arr[i].substring(1)).append(" ");
+        while (first < last && in.charAt(first) <= ' ') first++;
+        while (last > first && in.charAt(last - 1) <= ' ') last--;
 
-        return sb.toString().trim();
+        char[] out = new char[last - first];
+
+        int n         = 0;
+        boolean start = true; // If the next character starts a word.
+
+        // Single pass over the characters. Runs of spaces between words are collapsed into one.
+        for (int i = first; i < last; i++) {
+            char c = in.charAt(i);
+
+            if (c == ' ') {
+                if (!start) out[n++] = ' ';
+                start = true;
+
+                continue;
+            }
+
+            out[n++] = start ? Character.toUpperCase(c) : c;
+            start    = false;
+        }
+
+        return new String(out, 0, n);
     }
 
     // Generic array shuffle.
     public static < T > void shuffle(T[] arr) {
-        Random rand = new Random();
+        Random rand = ThreadLocalRandom.current(); // Shared per thread so shuffling does not allocate.
 
         for (int i = arr.length - 1; i > 0; i--) swap(arr, i, rand.nextInt(i + 1));
     }